@@ -0,0 +1,130 @@
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridBagLayout;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+
+/**
+ * Cold-start loader. A game lists the sprites it draws; {@link #show} puts a progress bar in the
+ * window straight away, decodes and scales all of them concurrently into {@link SpriteAtlas}, and
+ * then builds the game on the EDT, where every {@code SpriteAtlas.get} it makes is a cache hit.
+ *
+ * <p>Each sprite is its own task. They run on virtual threads when the runtime has them
+ * (Java 21+), looked up reflectively so the games still build and run on older JDKs, and on a
+ * small pool of daemon threads otherwise.
+ */
+public final class AssetPreloader {
+    /** One image at one draw size, as it will be requested from {@link SpriteAtlas#get}. */
+    public static final class Sprite {
+        final String name;
+        final int width;
+        final int height;
+
+        private Sprite(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /** Called with the number of sprites finished so far, from the loading threads. */
+    public interface Progress {
+        void loaded(int done, int total);
+    }
+
+    private AssetPreloader() {
+    }
+
+    public static Sprite sprite(String name, int width, int height) {
+        return new Sprite(name, width, height);
+    }
+
+    /** Loads {@code sprites} concurrently. The future completes once all of them are cached. */
+    public static CompletableFuture<Void> preload(Sprite[] sprites, Progress progress) {
+        ExecutorService executor = newExecutor(sprites.length);
+        AtomicInteger done = new AtomicInteger();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[sprites.length];
+        for (int i = 0; i < sprites.length; i++) {
+            Sprite sprite = sprites[i];
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                SpriteAtlas.get(sprite.name, sprite.width, sprite.height);
+                progress.loaded(done.incrementAndGet(), sprites.length);
+            }, executor);
+        }
+        executor.shutdown();
+        return CompletableFuture.allOf(tasks);
+    }
+
+    /**
+     * Shows {@code frame} with a progress bar of the game's size, preloads {@code sprites} and
+     * then replaces the bar with the component {@code game} builds. Call on the EDT.
+     */
+    public static void show(JFrame frame, Dimension size, Sprite[] sprites, Supplier<Component> game) {
+        LoadingScreen loading = new LoadingScreen(size, sprites.length);
+        CompletableFuture<Void> loaded = preload(sprites, loading);
+
+        frame.add(loading);
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+
+        // A failed task leaves its sprite uncached; the game then loads it itself.
+        loaded.whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            Component view = game.get();
+            frame.remove(loading);
+            frame.add(view);
+            frame.validate();
+            view.requestFocusInWindow();
+        }));
+    }
+
+    /** A black panel with a progress bar that fills up as sprites finish loading. */
+    static final class LoadingScreen extends JPanel implements Progress {
+        private final JProgressBar bar;
+
+        LoadingScreen(Dimension size, int total) {
+            super(new GridBagLayout());
+            bar = new JProgressBar(0, total);
+            bar.setPreferredSize(new Dimension(size.width / 2, 16));
+            JLabel label = new JLabel("Loading...");
+            label.setForeground(Color.WHITE);
+            label.setFont(HudText.font(Font.BOLD, 20));
+            JPanel bars = new JPanel(new BorderLayout(0, 8));
+            bars.setOpaque(false);
+            bars.add(label, BorderLayout.NORTH);
+            bars.add(bar, BorderLayout.CENTER);
+            setBackground(Color.BLACK);
+            setPreferredSize(size);
+            add(bars);
+        }
+
+        @Override
+        public void loaded(int done, int total) {
+            SwingUtilities.invokeLater(() -> bar.setValue(done));
+        }
+    }
+
+    private static ExecutorService newExecutor(int tasks) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+            return Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "asset-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -1,208 +1,151 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
-import java.io.*;
-import java.util.ArrayList;
 import java.util.Random;
 import javax.swing.*;
 
 public class CarGame extends JPanel implements ActionListener, KeyListener {
-    private int carX = 200;
-    private int carY = 700;
-    private final int carWidth = 40;
-    private final int carHeight = 90;
-
-    private Timer timer;
-    private ArrayList<CarObstacle> obstacles;
-    private Random rand;
-    private boolean gameOver = false;
-
-    private final int frameWidth = 400;
-    private final int frameHeight = 800;
-    private final int obstacleSpeed = 5;
-
-    private Image roadImage;
+    static final AssetPreloader.Sprite[] ASSETS = {
+        AssetPreloader.sprite("roadbg.png", CarSimulation.WIDTH, CarSimulation.HEIGHT),
+        AssetPreloader.sprite("car.png", CarSimulation.CAR_WIDTH, CarSimulation.CAR_HEIGHT),
+        AssetPreloader.sprite("boom.png", 60, 60),
+        AssetPreloader.sprite("car1.png", CarSimulation.OBSTACLE_WIDTH, CarSimulation.OBSTACLE_HEIGHT),
+        AssetPreloader.sprite("car2.png", CarSimulation.OBSTACLE_WIDTH, CarSimulation.OBSTACLE_HEIGHT),
+        AssetPreloader.sprite("car3.png", CarSimulation.OBSTACLE_WIDTH, CarSimulation.OBSTACLE_HEIGHT),
+        AssetPreloader.sprite("car4.png", CarSimulation.OBSTACLE_WIDTH, CarSimulation.OBSTACLE_HEIGHT),
+        AssetPreloader.sprite("car5.png", CarSimulation.OBSTACLE_WIDTH, CarSimulation.OBSTACLE_HEIGHT)
+    };
+
+    private final int carWidth = CarSimulation.CAR_WIDTH;
+    private final int carHeight = CarSimulation.CAR_HEIGHT;
+
+    private GameTimer timer;
+    private final CarSimulation sim;
+    private final InputLog inputLog;
+    private final InputState controls = new InputState()
+            .bind(KeyEvent.VK_LEFT, CarSimulation.INPUT_LEFT)
+            .bind(KeyEvent.VK_RIGHT, CarSimulation.INPUT_RIGHT)
+            .bind(KeyEvent.VK_UP, CarSimulation.INPUT_UP)
+            .bind(KeyEvent.VK_DOWN, CarSimulation.INPUT_DOWN);
+    private int savedHighScore = 0;
+
+    private final int frameWidth = CarSimulation.WIDTH;
+    private final int frameHeight = CarSimulation.HEIGHT;
+    private final int obstacleWidth = CarSimulation.OBSTACLE_WIDTH;
+    private final int obstacleHeight = CarSimulation.OBSTACLE_HEIGHT;
+
+    private ScrollingBackground roadImage;
     private Image playerCar;
     private Image[] opponentCars;
     private Image crashImage;
 
-    private int roadOffset = 0;
-    private boolean showCrash = false;
-    private int crashX, crashY;
-
-    private int score = 0;
-    private int highScore = 0;
-
-    private static final String HIGH_SCORE_FILE = "highscore.txt";
+    private final HighScoreStore highScores = HighScoreStore.forGame("car", "highscore.txt");
+    private final HudText scoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText highScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText gameOverText = new HudText("Game Over!", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText finalScoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText finalHighScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText restartText = new HudText("Press R to Restart", HudText.font(Font.BOLD, 30), Color.WHITE);
 
     public CarGame() {
         setDoubleBuffered(true);
-        timer = new Timer(20, this);
-        obstacles = new ArrayList<>();
-        rand = new Random();
+        timer = new GameTimer(20, this);
+        long seed = new Random().nextLong();
+        sim = new CarSimulation(seed);
+        inputLog = InputLog.startRecording("car", seed);
 
        
-        roadImage = loadImage("roadbg.png");
-        playerCar = loadImage("car.png");
-        crashImage = loadImage("boom.png");
+        roadImage = new ScrollingBackground("roadbg.png", frameWidth, frameHeight, true);
+        playerCar = SpriteAtlas.get("car.png", carWidth, carHeight);
+        crashImage = SpriteAtlas.get("boom.png", 60, 60);
 
         opponentCars = new Image[]{
-            loadImage("car1.png"),
-            loadImage("car2.png"),
-            loadImage("car3.png"),
-            loadImage("car4.png"),
-            loadImage("car5.png")
+            SpriteAtlas.get("car1.png", obstacleWidth, obstacleHeight),
+            SpriteAtlas.get("car2.png", obstacleWidth, obstacleHeight),
+            SpriteAtlas.get("car3.png", obstacleWidth, obstacleHeight),
+            SpriteAtlas.get("car4.png", obstacleWidth, obstacleHeight),
+            SpriteAtlas.get("car5.png", obstacleWidth, obstacleHeight)
         };
 
+        addKeyListener(controls);
         addKeyListener(this);
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                controls.clear();
+            }
+        });
         setFocusable(true);
         setPreferredSize(new Dimension(frameWidth, frameHeight)); 
 
-        loadHighScore();
+        savedHighScore = highScores.load();
+        sim.setHighScore(savedHighScore);
         timer.start();
     }
 
     
-    private Image loadImage(String filename) {
-        try {
-           
-            ImageIcon icon = new ImageIcon(filename);
-            if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                return icon.getImage();
-            }
-            
-           
-            java.net.URL url = getClass().getResource("/" + filename);
-            if (url != null) {
-                icon = new ImageIcon(url);
-                if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                    return icon.getImage();
-                }
-            }
-            
-            throw new Exception("Image not found");
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + filename + " - " + e.getMessage());
-          
-            BufferedImage img = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = img.createGraphics();
-            g2d.setColor(Color.MAGENTA);
-            g2d.fillRect(0, 0, 50, 50);
-            g2d.setColor(Color.BLACK);
-            g2d.drawString("X", 20, 25);
-            g2d.dispose();
-            return img;
-        }
-    }
-
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        render(g);
+    }
+
+    void render(Graphics g) {
         
       
-        g.drawImage(roadImage, 0, roadOffset, frameWidth, frameHeight, this);
-        g.drawImage(roadImage, 0, roadOffset - frameHeight, frameWidth, frameHeight, this);
+        roadImage.draw(g, sim.getRoadOffset());
         
-        if (!gameOver) {
+        if (!sim.isGameOver()) {
             
-            g.drawImage(playerCar, carX, carY, carWidth, carHeight, this);
+            g.drawImage(playerCar, sim.getCarX(), sim.getCarY(), null);
 
             
-            for (CarObstacle obs : obstacles) {
-                g.drawImage(obs.image, obs.x, obs.y, obs.width, obs.height, this);
+            EntityStore obstacles = sim.getObstacles();
+            for (int i = 0; i < obstacles.size(); i++) {
+                g.drawImage(opponentCars[obstacles.type[i]], obstacles.x[i], obstacles.y[i], null);
             }
 
             
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 20));
-            g.drawString("Score: " + score, 10, 30);
-            g.drawString("High Score: " + highScore, 10, 60);
+            scoreText.draw(g, sim.getScore(), 10, 30);
+            highScoreText.draw(g, sim.getHighScore(), 10, 60);
         } else {
-            if (showCrash) {
-                g.drawImage(crashImage, crashX, crashY, 60, 60, this);
-            }
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 30));
-            g.drawString("Game Over!", frameWidth / 4, frameHeight / 2);
-            g.drawString("Score: " + score, frameWidth / 4, frameHeight / 2 + 40);
-            g.drawString("High Score: " + highScore, frameWidth / 4, frameHeight / 2 + 80);
-            g.drawString("Press R to Restart", frameWidth / 4, frameHeight / 2 + 120);
+            g.drawImage(crashImage, sim.getCarX(), sim.getCarY(), null);
+            gameOverText.draw(g, frameWidth / 4, frameHeight / 2);
+            finalScoreText.draw(g, sim.getScore(), frameWidth / 4, frameHeight / 2 + 40);
+            finalHighScoreText.draw(g, sim.getHighScore(), frameWidth / 4, frameHeight / 2 + 80);
+            restartText.draw(g, frameWidth / 4, frameHeight / 2 + 120);
         }
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (!gameOver) {
-            roadOffset += 2;
-            if (roadOffset >= frameHeight) {
-                roadOffset = 0;
+        if (!sim.isGameOver()) {
+            GameEvents.Tick event = GameEvents.begin(GameEvents.TICK, GameEvents.Tick::new);
+            int input = controls.sample();
+            sim.step(input);
+            if (inputLog != null) {
+                inputLog.recordStep(input);
             }
 
-            for (int i = 0; i < obstacles.size(); i++) {
-                CarObstacle obs = obstacles.get(i);
-                obs.y += obstacleSpeed;
-                if (obs.y > frameHeight) {
-                    obstacles.remove(i);
-                    i--;
-                    score += 10;
-                }
-                if (obs.getBounds().intersects(new Rectangle(carX, carY, carWidth, carHeight))) {
-                    crashX = carX;
-                    crashY = carY;
-                    gameOver = true;
-                    showCrash = true;
-                    timer.stop();
-                    checkHighScore();
-                    repaint();
-                    return;
+            if (sim.isGameOver()) {
+                timer.stop();
+                if (sim.getHighScore() > savedHighScore) {
+                    savedHighScore = sim.getHighScore();
+                    highScores.save(savedHighScore);
                 }
             }
-
-            generateObstacle();
+            if (GameEvents.end(event)) {
+                event.game = "car";
+                event.tick = sim.getTick();
+                event.entities = sim.getObstacles().size();
+                event.commit();
+            }
             repaint();
         }
     }
 
-    private void generateObstacle() {
-        if (obstacles.size() >= 4) return;
-
-        if (rand.nextInt(100) < 4) {
-            int obsWidth = 40;
-            int obsHeight = 90;
-            int xPos;
-            boolean validPosition;
-            do {
-                xPos = rand.nextInt(frameWidth - obsWidth);
-                validPosition = true;
-                for (CarObstacle existing : obstacles) {
-                    if (Math.abs(existing.x - xPos) < obsWidth + 20 && Math.abs(existing.y) < obsHeight + 120) {
-                        validPosition = false;
-                        break;
-                    }
-                }
-            } while (!validPosition);
-
-            Image randomCarImage = opponentCars[rand.nextInt(opponentCars.length)];
-            obstacles.add(new CarObstacle(xPos, 0, obsWidth, obsHeight, randomCarImage));
-        }
-    }
-
     @Override
     public void keyPressed(KeyEvent e) {
-        int speed = 20;
-        if (e.getKeyCode() == KeyEvent.VK_LEFT && carX > 0) {
-            carX -= speed;
-        }
-        if (e.getKeyCode() == KeyEvent.VK_RIGHT && carX < frameWidth - carWidth) {
-            carX += speed;
-        }
-        if (e.getKeyCode() == KeyEvent.VK_UP && carY > 200) {
-            carY -= speed;
-        }
-        if (e.getKeyCode() == KeyEvent.VK_DOWN && carY < frameHeight - carHeight) {
-            carY += speed;
-        }
-        if (e.getKeyCode() == KeyEvent.VK_R && gameOver) {
+        if (e.getKeyCode() == KeyEvent.VK_R && sim.isGameOver()) {
             restartGame();
         }
     }
@@ -211,69 +154,34 @@ public class CarGame extends JPanel implements ActionListener, KeyListener {
     @Override public void keyTyped(KeyEvent e) {}
 
     private void restartGame() {
-        gameOver = false;
-        showCrash = false;
-        carX = 200;
-        carY = 700;
-        score = 0;
-        obstacles.clear();
+        sim.reset();
+        controls.clear();
+        if (inputLog != null) {
+            inputLog.recordReset();
+        }
         timer.start();
         repaint();
     }
 
-    private void checkHighScore() {
-        if (score > highScore) {
-            highScore = score;
-            saveHighScore();
-        }
-    }
-
-    private void loadHighScore() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(HIGH_SCORE_FILE))) {
-            highScore = Integer.parseInt(reader.readLine());
-        } catch (IOException | NumberFormatException e) {
-            highScore = 0;
-        }
-    }
-
-    private void saveHighScore() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(HIGH_SCORE_FILE))) {
-            writer.write(String.valueOf(highScore));
-        } catch (IOException e) {
-            System.out.println("Error saving high score!");
+    /** Stops the game for good, e.g. when the launcher switches to another one. */
+    void stop() {
+        timer.stop();
+        if (inputLog != null) {
+            inputLog.finish();
         }
     }
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
+            if (GameLoop.requested(args)) {
+                GameLoop.start();
+            }
             JFrame frame = new JFrame("Car Racing Game");
-            CarGame game = new CarGame();
-
-            frame.add(game);
-            frame.pack(); 
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.setLocationRelativeTo(null); 
-            frame.setVisible(true);
-            
-           
-            game.requestFocusInWindow();
+            AssetPreloader.show(frame, new Dimension(CarSimulation.WIDTH, CarSimulation.HEIGHT), ASSETS, () -> {
+                CarGame game = new CarGame();
+                return GameCanvas.host(game, game::render);
+            });
         });
     }
 }
-
-class CarObstacle {
-    int x, y, width, height;
-    Image image;
-
-    public CarObstacle(int x, int y, int width, int height, Image image) {
-        this.x = x;
-        this.y = y;
-        this.width = width;
-        this.height = height;
-        this.image = image;
-    }
-
-    public Rectangle getBounds() {
-        return new Rectangle(x, y, width, height);
-    }
-}
\ No newline at end of file
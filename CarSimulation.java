@@ -0,0 +1,186 @@
+import java.util.Random;
+
+/**
+ * Display-free CarGame state, advanced one 20 ms tick at a time by {@link #step(int)}.
+ */
+public class CarSimulation implements Simulation {
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 1 << 1;
+    public static final int INPUT_UP = 1 << 2;
+    public static final int INPUT_DOWN = 1 << 3;
+
+    public static final int WIDTH = 400;
+    public static final int HEIGHT = 800;
+    public static final int CAR_WIDTH = 40;
+    public static final int CAR_HEIGHT = 90;
+    public static final int OBSTACLE_WIDTH = 40;
+    public static final int OBSTACLE_HEIGHT = 90;
+    public static final int OBSTACLE_TYPES = 5;
+    public static final int DEFAULT_MAX_OBSTACLES = 4;
+    public static final int DEFAULT_SPAWN_CHANCE = 4;
+
+    // Per tick while a direction is held: 250 px/s at the game's 20 ms tick.
+    private static final int MOVE_STEP = 5;
+    private static final int OBSTACLE_SPEED = 5;
+    private static final int ROAD_SCROLL_SPEED = 2;
+
+    private final Random rand;
+    private final int maxObstacles;
+    private final int spawnChance;
+    private final LaneIndex spawnLanes = new LaneIndex(WIDTH - OBSTACLE_WIDTH);
+
+    // Kept in spawn order (type is the car sprite), which generateObstacle relies on.
+    private final EntityStore obstacles;
+
+    private int carX;
+    private int carY;
+    private boolean gameOver;
+    private int roadOffset;
+    private int score;
+    private int highScore;
+    private long tick;
+
+    public CarSimulation(long seed) {
+        this(seed, DEFAULT_MAX_OBSTACLES, DEFAULT_SPAWN_CHANCE);
+    }
+
+    public CarSimulation(long seed, int maxObstacles, int spawnChance) {
+        this.rand = new Random(seed);
+        this.maxObstacles = maxObstacles;
+        this.spawnChance = spawnChance;
+        this.obstacles = new EntityStore(maxObstacles);
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        gameOver = false;
+        carX = 200;
+        carY = 700;
+        score = 0;
+        roadOffset = 0;
+        obstacles.clear();
+        tick = 0;
+    }
+
+    @Override
+    public void step(int input) {
+        if (gameOver) {
+            return;
+        }
+        applyInput(input);
+
+        roadOffset += ROAD_SCROLL_SPEED;
+        if (roadOffset >= HEIGHT) {
+            roadOffset = 0;
+        }
+
+        EntityStore obs = obstacles;
+        int kept = 0;
+        boolean crashed = false;
+        for (int i = 0; i < obs.size(); i++) {
+            int x = obs.x[i];
+            int y = obs.y[i] + OBSTACLE_SPEED;
+            if (y > HEIGHT) {
+                score += 10;
+            } else {
+                obs.x[kept] = x;
+                obs.y[kept] = y;
+                obs.type[kept] = obs.type[i];
+                kept++;
+            }
+            if (x < carX + CAR_WIDTH && carX < x + OBSTACLE_WIDTH
+                    && y < carY + CAR_HEIGHT && carY < y + OBSTACLE_HEIGHT) {
+                crashed = true;
+            }
+        }
+        obs.truncate(kept);
+        tick++;
+
+        if (crashed) {
+            gameOver = true;
+            if (score > highScore) {
+                highScore = score;
+            }
+            return;
+        }
+
+        generateObstacle();
+    }
+
+    private void applyInput(int input) {
+        if ((input & INPUT_LEFT) != 0 && carX > 0) {
+            carX -= MOVE_STEP;
+        }
+        if ((input & INPUT_RIGHT) != 0 && carX < WIDTH - CAR_WIDTH) {
+            carX += MOVE_STEP;
+        }
+        if ((input & INPUT_UP) != 0 && carY > 200) {
+            carY -= MOVE_STEP;
+        }
+        if ((input & INPUT_DOWN) != 0 && carY < HEIGHT - CAR_HEIGHT) {
+            carY += MOVE_STEP;
+        }
+    }
+
+    // A new car may not spawn within 60 px (sideways) of any car still in the top 210 px. All
+    // obstacles move at the same speed and are stored in spawn order, so those cars are a short
+    // suffix, and at most a handful of them fit side by side.
+    void generateObstacle() {
+        if (obstacles.size() >= maxObstacles) return;
+
+        if (rand.nextInt(100) < spawnChance) {
+            spawnLanes.clear();
+            for (int i = obstacles.size() - 1; i >= 0; i--) {
+                if (Math.abs(obstacles.y[i]) >= OBSTACLE_HEIGHT + 120) {
+                    break;
+                }
+                spawnLanes.block(obstacles.x[i] - OBSTACLE_WIDTH - 19, obstacles.x[i] + OBSTACLE_WIDTH + 19);
+            }
+
+            int xPos = spawnLanes.pickFree(rand);
+            if (xPos < 0) return;
+
+            obstacles.add(xPos, 0, rand.nextInt(OBSTACLE_TYPES));
+        }
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getCarX() {
+        return carX;
+    }
+
+    public int getCarY() {
+        return carY;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public void setHighScore(int highScore) {
+        this.highScore = highScore;
+    }
+
+    public int getRoadOffset() {
+        return roadOffset;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+
+    EntityStore getObstacles() {
+        return obstacles;
+    }
+}
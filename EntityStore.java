@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for small moving entities: parallel x/y/type columns packed into
+ * the first {@link #size()} slots. Removal swaps the last entity into the freed slot, so
+ * iteration order is not stable; a loop that removes while walking forward must re-visit the
+ * current index instead of advancing.
+ */
+public class EntityStore {
+    int[] x;
+    int[] y;
+    int[] type;
+    private int size;
+
+    public EntityStore() {
+        this(64);
+    }
+
+    public EntityStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        type = new int[capacity];
+    }
+
+    public int add(int px, int py, int ptype) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            type = Arrays.copyOf(type, capacity);
+        }
+        x[size] = px;
+        y[size] = py;
+        type[size] = ptype;
+        return size++;
+    }
+
+    public void remove(int index) {
+        int last = --size;
+        x[index] = x[last];
+        y[index] = y[last];
+        type[index] = type[last];
+    }
+
+    /** Drops every entity from {@code newSize} on, for loops that compact the store in place. */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public void copyFrom(EntityStore other) {
+        if (x.length < other.size) {
+            int capacity = other.x.length;
+            x = new int[capacity];
+            y = new int[capacity];
+            type = new int[capacity];
+        }
+        System.arraycopy(other.x, 0, x, 0, other.size);
+        System.arraycopy(other.y, 0, y, 0, other.size);
+        System.arraycopy(other.type, 0, type, 0, other.size);
+        size = other.size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Fixed-timestep clock for a simulation driven by a render-rate timer. Each frame,
+ * {@link #advance()} adds the {@code System.nanoTime} elapsed since the previous frame to an
+ * accumulator and returns how many whole steps it now holds; the caller runs that many
+ * simulation steps. The remainder is {@link #alpha()}: how far the display is between the last
+ * two simulation states, for interpolating positions when drawing.
+ *
+ * <p>Physics therefore always moves in equal steps, however often or late the frame timer fires,
+ * so a game plays the same on a 60 Hz and a 144 Hz display and its input logs replay exactly.
+ * After a long stall at most {@link #MAX_STEPS} steps are run and the rest of the backlog is
+ * dropped rather than fast-forwarded.
+ */
+public final class FixedTimestep {
+    static final int MAX_STEPS = 5;
+
+    private final long stepNanos;
+    private long last;
+    private long accumulator;
+
+    public FixedTimestep(long stepNanos) {
+        this.stepNanos = stepNanos;
+        reset();
+    }
+
+    public static FixedTimestep ofMillis(int stepMillis) {
+        return new FixedTimestep(stepMillis * 1_000_000L);
+    }
+
+    public static FixedTimestep atRate(int stepsPerSecond) {
+        return new FixedTimestep(1_000_000_000L / stepsPerSecond);
+    }
+
+    /** Starts counting from now with an empty accumulator. */
+    public void reset() {
+        last = System.nanoTime();
+        accumulator = 0;
+    }
+
+    /** Returns the number of steps to run for the time elapsed since the previous call. */
+    public int advance() {
+        long now = System.nanoTime();
+        accumulator += now - last;
+        last = now;
+        long steps = accumulator / stepNanos;
+        if (steps > MAX_STEPS) {
+            accumulator = 0;
+            return MAX_STEPS;
+        }
+        accumulator -= steps * stepNanos;
+        return (int) steps;
+    }
+
+    /** The fraction of a step, 0 to 1, that has passed since the last step was run. */
+    public float alpha() {
+        long pending = accumulator + (System.nanoTime() - last);
+        return pending >= stepNanos ? 1f : (float) pending / stepNanos;
+    }
+
+    /** The value {@code alpha} of the way from {@code from} to {@code to}, rounded to a pixel. */
+    public static int lerp(int from, int to, float alpha) {
+        return from + Math.round((to - from) * alpha);
+    }
+}
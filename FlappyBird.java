@@ -3,18 +3,28 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
 import java.util.Random;
 import javax.swing.*;
 
 public class FlappyBird extends JPanel implements ActionListener, KeyListener {
+    static final AssetPreloader.Sprite[] ASSETS = {
+        AssetPreloader.sprite("flappybirdbg.png", FlappySimulation.WIDTH, FlappySimulation.HEIGHT),
+        AssetPreloader.sprite("flappybird.png", FlappySimulation.BIRD_WIDTH, FlappySimulation.BIRD_HEIGHT),
+        AssetPreloader.sprite("toppipe.png", FlappySimulation.PIPE_WIDTH, FlappySimulation.PIPE_HEIGHT),
+        AssetPreloader.sprite("bottompipe.png", FlappySimulation.PIPE_WIDTH, FlappySimulation.PIPE_HEIGHT)
+    };
 
-    int boardWidth = 360;
-    int boardHeight = 640;
+    int boardWidth = FlappySimulation.WIDTH;
+    int boardHeight = FlappySimulation.HEIGHT;
 
-    double score;
+    private final HudText scoreText = HudText.numbered("", HudText.font(Font.PLAIN, 32), Color.WHITE);
+    private final HudText gameOverText = HudText.numbered("Game Over: ", HudText.font(Font.PLAIN, 32), Color.WHITE);
 
-    Random random = new Random();
+    final FlappySimulation sim;
+    private final FixedTimestep clock = FixedTimestep.atRate(60);
+    private final InputLog inputLog;
+    private int pendingInput = 0;
+    private int previousBirdY;
 
   
     Image flappyBird;
@@ -23,186 +33,96 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
     Image topPipe;
 
    
-    int pipeX = boardWidth;
-    int pipeY = 0;
-    int pipeHeight = 512;
-    int pipeWidth = 64;
-    int pipeVelocity = -4;
-
-    boolean gameOver = false;
-
-    class Pipe {
-        int x = pipeX;
-        int y = pipeY;
-        int height = pipeHeight;
-        int width = pipeWidth;
-        boolean passed = false;
-        Image img;
-
-        public Pipe(Image img) {
-            this.img = img;
-        }
-    }
-
-    ArrayList<Pipe> pipes;
-
-  
-    int birdX = boardWidth / 8;
-    int birdY = boardHeight / 2;
-    int birdWidth = 34;
-    int birdHeight = 24;
-    int velocity = 0;
-    int gravity = 1;
-
-    class Bird {
-        int x = birdX;
-        int y = birdY;
-        int width = birdWidth;
-        int height = birdHeight;
-        Image img;
-
-        Bird(Image img) {
-            this.img = img;
-        }
-    }
-
-    Bird bird;
-
-   
-    Timer gameLoop;
-    Timer pipeLoop;
+    GameTimer gameLoop;
 
     FlappyBird() {
         setFocusable(true);
         addKeyListener(this);
         setPreferredSize(new Dimension(boardWidth, boardHeight));
 
-       
-        flappyBird = new ImageIcon(getClass().getResource("./flappybird.png")).getImage();
-        flappyBirdBg = new ImageIcon(getClass().getResource("./flappybirdbg.png")).getImage();
-        topPipe = new ImageIcon(getClass().getResource("./toppipe.png")).getImage();
-        bottomPipe = new ImageIcon(getClass().getResource("./bottompipe.png")).getImage();
-
-       
-        bird = new Bird(flappyBird);
+        long seed = new Random().nextLong();
+        sim = new FlappySimulation(seed);
+        previousBirdY = sim.getBirdY();
+        inputLog = InputLog.startRecording("flappy", seed);
 
        
-        pipes = new ArrayList<>();
-
-       
-        pipeLoop = new Timer(1500, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                placePipes();
-            }
-        });
-        pipeLoop.start();
+        flappyBird = SpriteAtlas.get("flappybird.png", FlappySimulation.BIRD_WIDTH, FlappySimulation.BIRD_HEIGHT);
+        flappyBirdBg = SpriteAtlas.get("flappybirdbg.png", boardWidth, boardHeight);
+        topPipe = SpriteAtlas.get("toppipe.png", FlappySimulation.PIPE_WIDTH, FlappySimulation.PIPE_HEIGHT);
+        bottomPipe = SpriteAtlas.get("bottompipe.png", FlappySimulation.PIPE_WIDTH, FlappySimulation.PIPE_HEIGHT);
 
       
-        gameLoop = new Timer(1000 / 60, this);
+        // One timer, once per display frame, drives everything: the clock runs the 60 Hz
+        // simulation steps that are due and the simulation places pipes by tick count.
+        gameLoop = GameTimer.atRate(GameLoop.frameRate(), this);
+        clock.reset();
         gameLoop.start();
     }
 
-    void placePipes() {
-        int openSpace = boardHeight / 4;
-        int randomPipeY = (int) (pipeY - pipeHeight / 4 - Math.random() * (pipeHeight / 2));
-
-        Pipe topPipe = new Pipe(this.topPipe);
-        topPipe.y = randomPipeY;
-        pipes.add(topPipe);
-
-        Pipe bottomPipe = new Pipe(this.bottomPipe);
-        bottomPipe.y = randomPipeY + pipeHeight + openSpace;
-        pipes.add(bottomPipe);
-    }
-
-    void move() {
-       
-        velocity += gravity;
-        bird.y += velocity;
-
-    
-        bird.y = Math.max(0, Math.min(bird.y, boardHeight - bird.height));
-
-        
-        for (int i = 0; i < pipes.size(); i++) {
-            Pipe pipe = pipes.get(i);
-            pipe.x += pipeVelocity;
-
-           
-            if (collision(bird, pipe)) {
-                gameOver = true;
-            }
-
-         
-            if (!pipe.passed && bird.x > pipe.x + pipe.width) {
-                pipe.passed = true;
-                score += 0.5;
-            }
-
-        
-            if (pipe.x + pipe.width < 0) {
-                pipes.remove(pipe);
-                i--;
-            }
-        }
-
-       
-        if (bird.y + bird.height >= boardHeight) {
-            gameOver = true;
-        }
-    }
-
-    boolean collision(Bird a, Pipe b) {
-        return a.x < b.x + b.width &&
-               a.x + a.width > b.x &&
-               a.y < b.y + b.height &&
-               a.y + a.height > b.y;
-    }
-
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (gameOver) {
-            pipeLoop.stop();
+        if (sim.isGameOver()) {
             gameLoop.stop();
         } else {
-            move();
+            for (int steps = clock.advance(); steps > 0 && !sim.isGameOver(); steps--) {
+                step();
+            }
         }
         repaint();
     }
 
+    private void step() {
+        GameEvents.Tick event = GameEvents.begin(GameEvents.TICK, GameEvents.Tick::new);
+        previousBirdY = sim.getBirdY();
+        int input = pendingInput;
+        pendingInput = 0;
+        sim.step(input);
+        if (inputLog != null) {
+            inputLog.recordStep(input);
+        }
+        if (GameEvents.end(event)) {
+            event.game = "flappy";
+            event.tick = sim.getTick();
+            event.entities = sim.getPipeCount();
+            event.commit();
+        }
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         draw(g);
     }
 
+    // Draws the state alpha of the way from the previous step to the current one.
     void draw(Graphics g) {
+        float alpha = sim.isGameOver() ? 1f : clock.alpha();
         
-        g.drawImage(flappyBirdBg, 0, 0, boardWidth, boardHeight, null);
+        g.drawImage(flappyBirdBg, 0, 0, null);
 
        
-        g.drawImage(bird.img, bird.x, bird.y, bird.width, bird.height, null);
+        g.drawImage(flappyBird, FlappySimulation.BIRD_X, FixedTimestep.lerp(previousBirdY, sim.getBirdY(), alpha), null);
 
         
-        for (Pipe pipe : pipes) {
-            g.drawImage(pipe.img, pipe.x, pipe.y, pipe.width, pipe.height, null);
+        int behind = Math.round(-FlappySimulation.PIPE_VELOCITY * (1 - alpha));
+        for (int i = 0; i < sim.getPipeCount(); i++) {
+            FlappySimulation.Pipe pipe = sim.pipe(i);
+            g.drawImage(topPipe, pipe.x + behind, pipe.y, null);
+            g.drawImage(bottomPipe, pipe.x + behind, pipe.bottomY(), null);
         }
 
         
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.PLAIN, 32));
-        if (gameOver) {
-            g.drawString("Game Over: " + (int) score, 10, 35);
+        if (sim.isGameOver()) {
+            gameOverText.draw(g, sim.getScore(), 10, 35);
         } else {
-            g.drawString(String.valueOf((int) score), 10, 35);
+            scoreText.draw(g, sim.getScore(), 10, 35);
         }
     }
 
     @Override
     public void keyPressed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-            velocity = -10; 
+            pendingInput |= FlappySimulation.INPUT_FLAP;
         }
     }
 
@@ -212,12 +132,25 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
     @Override
     public void keyReleased(KeyEvent e) {}
 
+    /** Stops the game for good, e.g. when the launcher switches to another one. */
+    void stop() {
+        gameLoop.stop();
+        if (inputLog != null) {
+            inputLog.finish();
+        }
+    }
+
     public static void main(String[] args) {
-        JFrame frame = new JFrame("Flappy Bird");
-        FlappyBird flappyBird = new FlappyBird();
-        frame.add(flappyBird);
-        frame.pack();
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setVisible(true);
+        SwingUtilities.invokeLater(() -> {
+            if (GameLoop.requested(args)) {
+                GameLoop.start();
+            }
+            JFrame frame = new JFrame("Flappy Bird");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            AssetPreloader.show(frame, new Dimension(FlappySimulation.WIDTH, FlappySimulation.HEIGHT), ASSETS, () -> {
+                FlappyBird flappyBird = new FlappyBird();
+                return GameCanvas.host(flappyBird, flappyBird::draw);
+            });
+        });
     }
 } 
\ No newline at end of file
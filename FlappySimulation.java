@@ -0,0 +1,169 @@
+import java.util.Random;
+
+/**
+ * Display-free FlappyBird state, advanced one 60 Hz frame at a time by {@link #step(int)}. A pipe
+ * pair is placed every {@link #PIPE_INTERVAL} ticks, the first one {@code PIPE_INTERVAL} ticks in
+ * as the old 1500 ms pipe timer did, so the pipe stream depends only on the seed and the tick
+ * count.
+ *
+ * <p>Pairs live in a small ring buffer, oldest first. Pairs only ever leave from the front, so
+ * eviction is O(1), and since they are ordered by x the collision test stops at the first pair
+ * that is still to the right of the bird.
+ */
+public class FlappySimulation implements Simulation {
+    public static final int INPUT_FLAP = 1;
+
+    /** Ticks between pipe pairs: 1500 ms at 60 ticks a second. */
+    public static final int PIPE_INTERVAL = 90;
+
+    public static final int WIDTH = 360;
+    public static final int HEIGHT = 640;
+    public static final int PIPE_WIDTH = 64;
+    public static final int PIPE_HEIGHT = 512;
+    public static final int BIRD_X = WIDTH / 8;
+    public static final int BIRD_WIDTH = 34;
+    public static final int BIRD_HEIGHT = 24;
+    public static final int OPEN_SPACE = HEIGHT / 4;
+
+    static final int PIPE_VELOCITY = -4;
+    private static final int GRAVITY = 1;
+    private static final int FLAP_VELOCITY = -10;
+
+    // A pair is on screen for (WIDTH + PIPE_WIDTH) / 4 = 106 ticks, so at most two are alive.
+    private static final int PIPE_CAPACITY = 4;
+    private static final int PIPE_MASK = PIPE_CAPACITY - 1;
+
+    /** A pipe pair. {@code y} is where the top pipe starts; the gap is {@link #OPEN_SPACE} high. */
+    static class Pipe {
+        int x;
+        int y;
+        boolean passed;
+
+        int gapTop() {
+            return y + PIPE_HEIGHT;
+        }
+
+        int bottomY() {
+            return y + PIPE_HEIGHT + OPEN_SPACE;
+        }
+    }
+
+    private final Random rand;
+    private final Pipe[] pipes = new Pipe[PIPE_CAPACITY];
+    private int firstPipe;
+    private int pipeCount;
+    int birdY;
+    int velocity;
+    private int score;
+    private boolean gameOver;
+    private long tick;
+
+    public FlappySimulation(long seed) {
+        this.rand = new Random(seed);
+        for (int i = 0; i < pipes.length; i++) {
+            pipes[i] = new Pipe();
+        }
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        birdY = HEIGHT / 2;
+        velocity = 0;
+        firstPipe = 0;
+        pipeCount = 0;
+        score = 0;
+        gameOver = false;
+        tick = 0;
+    }
+
+    @Override
+    public void step(int input) {
+        if (gameOver) {
+            return;
+        }
+        if ((input & INPUT_FLAP) != 0) {
+            velocity = FLAP_VELOCITY;
+        }
+        if (tick > 0 && tick % PIPE_INTERVAL == 0) {
+            placePipes();
+        }
+        move();
+        tick++;
+    }
+
+    void placePipes() {
+        if (pipeCount == PIPE_CAPACITY) {
+            throw new IllegalStateException("Pipe buffer full");
+        }
+        Pipe pipe = pipes[(firstPipe + pipeCount) & PIPE_MASK];
+        pipe.x = WIDTH;
+        pipe.y = (int) (-PIPE_HEIGHT / 4 - rand.nextDouble() * (PIPE_HEIGHT / 2));
+        pipe.passed = false;
+        pipeCount++;
+    }
+
+    void move() {
+        velocity += GRAVITY;
+        birdY += velocity;
+
+        birdY = Math.max(0, Math.min(birdY, HEIGHT - BIRD_HEIGHT));
+
+        for (int i = 0; i < pipeCount; i++) {
+            Pipe pipe = pipe(i);
+            pipe.x += PIPE_VELOCITY;
+            if (!pipe.passed && BIRD_X > pipe.x + PIPE_WIDTH) {
+                pipe.passed = true;
+                score++;
+            }
+        }
+
+        while (pipeCount > 0 && pipes[firstPipe].x + PIPE_WIDTH < 0) {
+            firstPipe = (firstPipe + 1) & PIPE_MASK;
+            pipeCount--;
+        }
+
+        for (int i = 0; i < pipeCount; i++) {
+            Pipe pipe = pipe(i);
+            if (pipe.x >= BIRD_X + BIRD_WIDTH) {
+                break;
+            }
+            if (BIRD_X < pipe.x + PIPE_WIDTH && (birdY < pipe.gapTop() || birdY + BIRD_HEIGHT > pipe.bottomY())) {
+                gameOver = true;
+            }
+        }
+
+        if (birdY + BIRD_HEIGHT >= HEIGHT) {
+            gameOver = true;
+        }
+    }
+
+    /** The number of pipe pairs on screen. */
+    public int getPipeCount() {
+        return pipeCount;
+    }
+
+    /** The {@code i}-th pipe pair on screen, oldest (leftmost) first. */
+    Pipe pipe(int i) {
+        return pipes[(firstPipe + i) & PIPE_MASK];
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getBirdY() {
+        return birdY;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+}
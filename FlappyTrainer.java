@@ -0,0 +1,270 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Neuroevolution for FlappyBird. A whole population flies through one seeded pipe stream per
+ * generation. Bird state lives in primitive arrays (height, velocity, alive, ticks survived) and
+ * every tick updates a chunk of birds in one loop. The pipe work is shared: the stream is
+ * generated once per generation, and the one or two pipes near the birds are found once per
+ * tick for the whole chunk.
+ *
+ * <p>Pipe positions depend only on the tick, so the chunks never wait for each other. Each one
+ * runs the full generation on its own core, and only the selection step between generations is
+ * sequential.
+ *
+ * <p>The physics is FlappySimulation's, step for step, including a pipe pair every
+ * {@link #PIPE_INTERVAL} ticks, so a genome scores exactly the same in
+ * {@link #evaluate(float[], int, long, int)}, which plays it through the real simulation.
+ *
+ * <pre>
+ *   java FlappyTrainer [population] [generations] [seed]
+ * </pre>
+ */
+public final class FlappyTrainer {
+    public static final int PIPE_INTERVAL = FlappySimulation.PIPE_INTERVAL;
+
+    private static final int INPUTS = 5;
+    private static final int HIDDEN = 6;
+    static final int GENOME = INPUTS * HIDDEN + HIDDEN + HIDDEN + 1;
+
+    private static final int CHUNK = 256;
+    private static final double ELITE_FRACTION = 0.1;
+    private static final double MUTATION = 0.2;
+
+    private static final int WIDTH = FlappySimulation.WIDTH;
+    private static final int HEIGHT = FlappySimulation.HEIGHT;
+    private static final int BIRD_X = FlappySimulation.BIRD_X;
+    private static final int BIRD_WIDTH = FlappySimulation.BIRD_WIDTH;
+    private static final int BIRD_HEIGHT = FlappySimulation.BIRD_HEIGHT;
+    private static final int PIPE_WIDTH = FlappySimulation.PIPE_WIDTH;
+    private static final int PIPE_HEIGHT = FlappySimulation.PIPE_HEIGHT;
+    private static final int OPEN_SPACE = FlappySimulation.OPEN_SPACE;
+
+    private final int population;
+    private final int maxTicks;
+    private final Random rand;
+
+    float[] weights;
+    private float[] nextWeights;
+    final int[] birdY;
+    final int[] velocity;
+    final boolean[] alive;
+    final int[] ticksSurvived;
+    private int[] pipeTops = new int[0];
+
+    public FlappyTrainer(int population, int maxTicks, long seed) {
+        this.population = population;
+        this.maxTicks = maxTicks;
+        this.rand = new Random(seed);
+        this.weights = new float[population * GENOME];
+        this.nextWeights = new float[population * GENOME];
+        this.birdY = new int[population];
+        this.velocity = new int[population];
+        this.alive = new boolean[population];
+        this.ticksSurvived = new int[population];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) rand.nextGaussian();
+        }
+    }
+
+    /** Flies the current population through the pipe stream of {@code pipeSeed}. */
+    public void runGeneration(long pipeSeed) {
+        pipeTops = pipeStream(pipeSeed, maxTicks / PIPE_INTERVAL, pipeTops);
+        Arrays.fill(birdY, HEIGHT / 2);
+        Arrays.fill(velocity, 0);
+        Arrays.fill(alive, true);
+        Arrays.fill(ticksSurvived, 0);
+
+        int chunks = (population + CHUNK - 1) / CHUNK;
+        IntStream.range(0, chunks).parallel()
+                .forEach(c -> runChunk(c * CHUNK, Math.min(population, (c + 1) * CHUNK)));
+    }
+
+    // The top edge of each pipe pair, drawn exactly as FlappySimulation.placePipes draws them.
+    static int[] pipeStream(long seed, int count, int[] reuse) {
+        int[] tops = reuse.length >= count ? reuse : new int[count];
+        Random pipes = new Random(seed);
+        for (int k = 0; k < count; k++) {
+            tops[k] = (int) (-PIPE_HEIGHT / 4 - pipes.nextDouble() * (PIPE_HEIGHT / 2));
+        }
+        return tops;
+    }
+
+    private void runChunk(int from, int to) {
+        int living = to - from;
+        for (int tick = 0; tick < maxTicks && living > 0; tick++) {
+            // What the birds see: the first pipe pair not yet behind them, before this tick.
+            int next = nextPipe(tick);
+            float dx = next < 0 ? 1 : (float) (pipeX(next, tick) - BIRD_X) / WIDTH;
+            int gapTop = next < 0 ? 0 : pipeTops[next] + PIPE_HEIGHT;
+            int gapBottom = next < 0 ? HEIGHT : gapTop + OPEN_SPACE;
+
+            // The one or two pipe pairs overlapping the birds' column after this tick's move.
+            int hitFirst = -1;
+            int hitLast = -2;
+            for (int k = tick / PIPE_INTERVAL - 1; k >= 0; k--) {
+                int x = pipeX(k, tick + 1);
+                if (x + PIPE_WIDTH <= BIRD_X) {
+                    break;
+                }
+                if (x < BIRD_X + BIRD_WIDTH) {
+                    hitFirst = k;
+                    if (hitLast < 0) {
+                        hitLast = k;
+                    }
+                }
+            }
+
+            for (int i = from; i < to; i++) {
+                if (!alive[i]) {
+                    continue;
+                }
+                int y = birdY[i];
+                int v = velocity[i];
+                if (flap(weights, i * GENOME, y, v, dx, gapTop, gapBottom)) {
+                    v = -10;
+                }
+                v += 1;
+                y = Math.max(0, Math.min(y + v, HEIGHT - BIRD_HEIGHT));
+
+                boolean dead = y + BIRD_HEIGHT >= HEIGHT;
+                for (int k = hitFirst; k >= 0 && k <= hitLast; k++) {
+                    int top = pipeTops[k] + PIPE_HEIGHT;
+                    if (y < top || y + BIRD_HEIGHT > top + OPEN_SPACE) {
+                        dead = true;
+                    }
+                }
+
+                birdY[i] = y;
+                velocity[i] = v;
+                ticksSurvived[i] = tick + 1;
+                if (dead) {
+                    alive[i] = false;
+                    living--;
+                }
+            }
+        }
+    }
+
+    // Pipe k is placed on tick (k + 1) * PIPE_INTERVAL and moved on that same tick.
+    private static int pipeX(int k, int ticksDone) {
+        return WIDTH - 4 * (ticksDone - (k + 1) * PIPE_INTERVAL);
+    }
+
+    private int nextPipe(int tick) {
+        int next = -1;
+        for (int k = (tick - 1) / PIPE_INTERVAL - 1; k >= 0 && tick > 0; k--) {
+            if (pipeX(k, tick) + PIPE_WIDTH < BIRD_X) {
+                break;
+            }
+            next = k;
+        }
+        return next;
+    }
+
+    /** The network: five inputs, one tanh hidden layer, flap when the output is positive. */
+    static boolean flap(float[] genome, int offset, int y, int v, float dx, int gapTop, int gapBottom) {
+        float in0 = (float) y / HEIGHT;
+        float in1 = v / 10f;
+        float in2 = dx;
+        float in3 = (float) (y - gapTop) / HEIGHT;
+        float in4 = (float) (gapBottom - y - BIRD_HEIGHT) / HEIGHT;
+        int w = offset;
+        int out = offset + INPUTS * HIDDEN + HIDDEN;
+        float sum = genome[out + HIDDEN];
+        for (int h = 0; h < HIDDEN; h++) {
+            float a = genome[w] * in0 + genome[w + 1] * in1 + genome[w + 2] * in2 + genome[w + 3] * in3
+                    + genome[w + 4] * in4 + genome[offset + INPUTS * HIDDEN + h];
+            w += INPUTS;
+            sum += genome[out + h] * (float) Math.tanh(a);
+        }
+        return sum > 0;
+    }
+
+    /**
+     * Breeds the next population: the fittest tenth survive unchanged and the rest are mutated
+     * copies of them. Returns the index of the fittest bird of the generation just run.
+     */
+    public int evolve() {
+        Integer[] order = new Integer[population];
+        for (int i = 0; i < population; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(ticksSurvived[b], ticksSurvived[a]));
+
+        int elites = Math.max(1, (int) (population * ELITE_FRACTION));
+        for (int i = 0; i < population; i++) {
+            int parent = order[i < elites ? i : rand.nextInt(elites)];
+            System.arraycopy(weights, parent * GENOME, nextWeights, i * GENOME, GENOME);
+            if (i >= elites) {
+                for (int g = i * GENOME; g < (i + 1) * GENOME; g++) {
+                    nextWeights[g] += (float) (rand.nextGaussian() * MUTATION);
+                }
+            }
+        }
+        int best = order[0];
+        float[] swap = weights;
+        weights = nextWeights;
+        nextWeights = swap;
+        return best;
+    }
+
+    /**
+     * Plays {@code genome} through a real {@link FlappySimulation}, returning the ticks it
+     * survived (at most {@code maxTicks}).
+     */
+    public static int evaluate(float[] genome, int offset, long pipeSeed, int maxTicks) {
+        FlappySimulation sim = new FlappySimulation(pipeSeed);
+        while (!sim.isGameOver() && sim.getTick() < maxTicks) {
+            FlappySimulation.Pipe next = null;
+            for (int i = 0; i < sim.getPipeCount(); i++) {
+                FlappySimulation.Pipe pipe = sim.pipe(i);
+                if (pipe.x + PIPE_WIDTH >= BIRD_X) {
+                    next = pipe;
+                    break;
+                }
+            }
+            float dx = next == null ? 1 : (float) (next.x - BIRD_X) / WIDTH;
+            int gapTop = next == null ? 0 : next.gapTop();
+            int gapBottom = next == null ? HEIGHT : gapTop + OPEN_SPACE;
+
+            boolean flap = flap(genome, offset, sim.birdY, sim.velocity, dx, gapTop, gapBottom);
+            sim.step(flap ? FlappySimulation.INPUT_FLAP : 0);
+        }
+        return (int) sim.getTick();
+    }
+
+    public static void main(String[] args) {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int maxTicks = 60 * 60 * 5;
+
+        FlappyTrainer trainer = new FlappyTrainer(population, maxTicks, seed);
+        for (int generation = 0; generation < generations; generation++) {
+            long pipeSeed = seed * 1_000_003L + generation;
+            long start = System.nanoTime();
+            trainer.runGeneration(pipeSeed);
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            long totalTicks = 0;
+            for (int ticks : trainer.ticksSurvived) {
+                totalTicks += ticks;
+            }
+            float[] genomes = trainer.weights;
+            int best = trainer.evolve();
+            int bestTicks = trainer.ticksSurvived[best];
+            int check = evaluate(genomes, best * GENOME, pipeSeed, maxTicks);
+            System.out.println(String.format(Locale.ROOT,
+                    "gen %3d  %8.1f ms  %6.1fM bird-ticks/s  best %6d ticks (%.1f s)  mean %8.1f%s",
+                    generation, millis, totalTicks / millis / 1000, bestTicks, bestTicks / 60.0,
+                    (double) totalTicks / population,
+                    check == bestTicks ? "" : "  MISMATCH vs FlappySimulation: " + check));
+            if (bestTicks >= maxTicks) {
+                break;
+            }
+        }
+    }
+}
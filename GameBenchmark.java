@@ -0,0 +1,426 @@
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+
+/**
+ * Steady-state per-tick benchmarks for every game's hot path, in the spirit of a JMH
+ * {@code AverageTime} run: each scenario is warmed up, then timed in batches of ticks, with any
+ * state reset done between batches and outside the timed region. Allocation is read from the
+ * thread's allocated-bytes counter around the same batches.
+ *
+ * <pre>
+ *   java -Djava.awt.headless=true GameBenchmark [name-filter]
+ *   java -Djava.awt.headless=true GameBenchmark --check-alloc
+ * </pre>
+ *
+ * {@code --check-alloc} runs only the scenarios whose steady state must not allocate and exits
+ * with status 1 if any of them does.
+ *
+ * Games are built and ticked on the EDT, exactly as their timers would, so no game timer can fire
+ * in the middle of a measurement.
+ */
+public class GameBenchmark {
+    private static final long WARMUP_MILLIS = Long.getLong("bench.warmup", 1000);
+    private static final long MEASURE_MILLIS = Long.getLong("bench.measure", 2000);
+    private static final int BATCH_TICKS = 100;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    abstract static class Scenario {
+        final String name;
+        boolean allocationFree;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        Scenario allocationFree() {
+            allocationFree = true;
+            return this;
+        }
+
+        abstract void setup() throws Exception;
+
+        abstract void tick();
+
+        boolean needsReset() {
+            return false;
+        }
+
+        void reset() throws Exception {
+            setup();
+        }
+    }
+
+    static final class Result {
+        final String name;
+        final long ticks;
+        final double nanosPerTick;
+        final double stdDev;
+        final double bytesPerTick;
+
+        Result(String name, long ticks, double nanosPerTick, double stdDev, double bytesPerTick) {
+            this.name = name;
+            this.ticks = ticks;
+            this.nanosPerTick = nanosPerTick;
+            this.stdDev = stdDev;
+            this.bytesPerTick = bytesPerTick;
+        }
+    }
+
+    static Result run(Scenario scenario) throws Exception {
+        scenario.setup();
+        measure(scenario, WARMUP_MILLIS);
+        return measure(scenario, MEASURE_MILLIS);
+    }
+
+    private static Result measure(Scenario scenario, long millis) throws Exception {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long ticks = 0;
+        long nanos = 0;
+        long bytes = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        int batches = 0;
+
+        while (System.nanoTime() < deadline) {
+            if (scenario.needsReset()) {
+                scenario.reset();
+            }
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            int n = 0;
+            while (n < BATCH_TICKS && !scenario.needsReset()) {
+                scenario.tick();
+                n++;
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            if (n == 0) {
+                continue;
+            }
+            ticks += n;
+            nanos += elapsed;
+            bytes += allocated;
+            double perTick = (double) elapsed / n;
+            sum += perTick;
+            sumSquares += perTick * perTick;
+            batches++;
+        }
+
+        double mean = ticks == 0 ? 0 : (double) nanos / ticks;
+        double batchMean = batches == 0 ? 0 : sum / batches;
+        double variance = batches < 2 ? 0 : Math.max(0, sumSquares / batches - batchMean * batchMean);
+        return new Result(scenario.name, ticks, mean, Math.sqrt(variance), ticks == 0 ? 0 : (double) bytes / ticks);
+    }
+
+    static List<Scenario> scenarios() {
+        List<Scenario> list = new ArrayList<>();
+        for (int enemies : new int[]{4, 64, 1024}) {
+            for (int bullets : new int[]{16, 256, 4096}) {
+                list.add(spaceCheckCollisions(enemies, bullets).allocationFree());
+            }
+            list.add(spaceUpdateEnemies(enemies));
+            list.add(spaceTick(enemies).allocationFree());
+        }
+        list.add(spaceUpdateBullets(1024).allocationFree());
+        list.add(spaceUpdateBullets(100_000).allocationFree());
+        list.add(carTick(4, 4).allocationFree());
+        list.add(carTick(64, 50).allocationFree());
+        list.add(carTick(1000, 100).allocationFree());
+        list.add(snakeMove(30, 20, 10).allocationFree());
+        list.add(snakeMove(30, 20, 400).allocationFree());
+        list.add(snakeMove(300, 200, 10).allocationFree());
+        list.add(snakeMove(300, 200, 20000).allocationFree());
+        list.add(snakeMove(1000, 1000, 500_000).allocationFree());
+        list.add(flappyMove().allocationFree());
+        list.add(heroUpdate().allocationFree());
+        return list;
+    }
+
+    // Enemies in the top half, player bullets in the bottom half: the full broadphase runs every
+    // call but nothing is ever hit, so the state never changes between calls.
+    static Scenario spaceCheckCollisions(int enemies, int bullets) {
+        return new Scenario("space.checkCollisions enemies=" + enemies + " bullets=" + bullets) {
+            SpaceSimulation sim;
+
+            @Override
+            void setup() {
+                sim = new SpaceSimulation(42, enemies);
+                Random rand = new Random(7);
+                for (int i = 0; i < enemies; i++) {
+                    int x = rand.nextInt(SpaceSimulation.WIDTH - SpaceSimulation.ROCKET_WIDTH);
+                    sim.getEnemyRockets().add(x, rand.nextInt(300), rand.nextInt(SpaceSimulation.ENEMY_TYPES));
+                }
+                for (int i = 0; i < bullets; i++) {
+                    int x = rand.nextInt(SpaceSimulation.WIDTH - SpaceSimulation.BULLET_WIDTH);
+                    sim.getPlayerBullets().add(x, 450 + rand.nextInt(300), 0);
+                }
+            }
+
+            @Override
+            void tick() {
+                sim.checkCollisions();
+            }
+        };
+    }
+
+    static Scenario spaceUpdateEnemies(int enemies) {
+        return new Scenario("space.updateEnemies enemies=" + enemies) {
+            SpaceSimulation sim;
+
+            @Override
+            void setup() {
+                sim = new SpaceSimulation(42, enemies);
+                for (int i = 0; i < enemies; i++) {
+                    sim.spawnEnemyRocket();
+                }
+            }
+
+            @Override
+            void tick() {
+                sim.updateEnemies();
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.getEnemyRockets().size() < enemies || sim.getEnemyBullets().size() > 4 * enemies;
+            }
+        };
+    }
+
+    static Scenario spaceUpdateBullets(int bullets) {
+        return new Scenario("space.updateBullets bullets=" + bullets) {
+            SpaceSimulation sim;
+
+            @Override
+            void setup() {
+                sim = new SpaceSimulation(42, 0);
+                Random rand = new Random(7);
+                for (int i = 0; i < bullets; i++) {
+                    sim.getPlayerBullets().add(rand.nextInt(SpaceSimulation.WIDTH), SpaceSimulation.HEIGHT / 2 + rand.nextInt(SpaceSimulation.HEIGHT / 2), 0);
+                    sim.getEnemyBullets().add(rand.nextInt(SpaceSimulation.WIDTH), rand.nextInt(SpaceSimulation.HEIGHT / 2), 0);
+                }
+            }
+
+            @Override
+            void tick() {
+                sim.updateBullets();
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.getPlayerBullets().size() < bullets / 2;
+            }
+        };
+    }
+
+    static Scenario spaceTick(int maxEnemies) {
+        return new Scenario("space.step maxEnemies=" + maxEnemies) {
+            SpaceSimulation sim;
+            int tick;
+
+            @Override
+            void setup() {
+                sim = new SpaceSimulation(42, maxEnemies);
+            }
+
+            @Override
+            void tick() {
+                tick++;
+                int input = (tick & 3) == 0 ? SpaceSimulation.INPUT_FIRE : 0;
+                input |= (tick & 64) == 0 ? SpaceSimulation.INPUT_LEFT : SpaceSimulation.INPUT_RIGHT;
+                sim.step(input);
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.isGameOver();
+            }
+
+            @Override
+            void reset() {
+                sim.reset();
+            }
+        };
+    }
+
+    static Scenario carTick(int maxObstacles, int spawnChance) {
+        return new Scenario("car.step max=" + maxObstacles + " spawn=" + spawnChance + "%") {
+            CarSimulation sim;
+            int tick;
+
+            @Override
+            void setup() {
+                sim = new CarSimulation(42, maxObstacles, spawnChance);
+            }
+
+            @Override
+            void tick() {
+                tick++;
+                sim.step((tick & 64) == 0 ? CarSimulation.INPUT_LEFT : CarSimulation.INPUT_RIGHT);
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.isGameOver();
+            }
+
+            @Override
+            void reset() {
+                sim.reset();
+            }
+        };
+    }
+
+    // The snake follows a Hamiltonian cycle (column 0 is the way back up), so it never dies, and
+    // its tail is trimmed after every move to hold the length steady.
+    static Scenario snakeMove(int width, int height, int length) {
+        return new Scenario("snake.move board=" + width + "x" + height + " length=" + length) {
+            SnakeSimulation sim;
+
+            @Override
+            void setup() {
+                sim = new SnakeSimulation(width, height, 42);
+                Point[] cycle = hamiltonianCycle(width, height);
+                sim.snake.clear();
+                for (int i = 0; i < length; i++) {
+                    sim.snake.addHead(sim.snake.cell(cycle[i].x, cycle[i].y));
+                }
+            }
+
+            @Override
+            void tick() {
+                int head = sim.snake.head();
+                sim.direction = cycleDirection(sim.snake.x(head), sim.snake.y(head), width, height);
+                sim.move();
+                if (sim.snake.length() > length) {
+                    sim.snake.removeTail();
+                }
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.isGameOver();
+            }
+        };
+    }
+
+    static Scenario flappyMove() {
+        return new Scenario("flappy.step") {
+            FlappySimulation sim;
+
+            @Override
+            void setup() {
+                sim = new FlappySimulation(42);
+            }
+
+            @Override
+            void tick() {
+                sim.step(sim.getBirdY() > FlappySimulation.HEIGHT / 2 ? FlappySimulation.INPUT_FLAP : 0);
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.isGameOver();
+            }
+
+            @Override
+            void reset() {
+                sim.reset();
+            }
+        };
+    }
+
+    static Scenario heroUpdate() {
+        return new Scenario("hero.step") {
+            HeroSimulation sim;
+            int tick;
+
+            @Override
+            void setup() {
+                sim = new HeroSimulation(42);
+            }
+
+            @Override
+            void tick() {
+                sim.step(tick++ % 20 == 0 ? HeroSimulation.INPUT_JUMP : 0);
+            }
+
+            @Override
+            boolean needsReset() {
+                return sim.isGameOver();
+            }
+
+            @Override
+            void reset() {
+                sim.reset();
+            }
+        };
+    }
+
+    static Point[] hamiltonianCycle(int width, int height) {
+        Point[] cycle = new Point[width * height];
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < cycle.length; i++) {
+            cycle[i] = new Point(x, y);
+            switch (cycleDirection(x, y, width, height)) {
+                case SnakeSimulation.INPUT_UP: y--; break;
+                case SnakeSimulation.INPUT_DOWN: y++; break;
+                case SnakeSimulation.INPUT_LEFT: x--; break;
+                default: x++; break;
+            }
+        }
+        return cycle;
+    }
+
+    static int cycleDirection(int x, int y, int width, int height) {
+        if (x == 0) {
+            return y == 0 ? SnakeSimulation.INPUT_RIGHT : SnakeSimulation.INPUT_UP;
+        }
+        if (y % 2 == 0) {
+            return x < width - 1 ? SnakeSimulation.INPUT_RIGHT : SnakeSimulation.INPUT_DOWN;
+        }
+        if (x > 1 || y == height - 1) {
+            return SnakeSimulation.INPUT_LEFT;
+        }
+        return SnakeSimulation.INPUT_DOWN;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        boolean checkAllocation = args.length > 0 && args[0].equals("--check-alloc");
+        String filter = args.length > 0 && !checkAllocation ? args[0] : "";
+        int[] failures = new int[1];
+
+        SwingUtilities.invokeAndWait(() -> {
+            System.out.println(String.format(Locale.ROOT, "%-52s %12s %10s %12s %10s",
+                    "Benchmark", "ns/tick", "error", "ticks/s", "B/tick"));
+            for (Scenario scenario : scenarios()) {
+                if (!scenario.name.contains(filter) || (checkAllocation && !scenario.allocationFree)) {
+                    continue;
+                }
+                try {
+                    Result r = run(scenario);
+                    System.out.println(String.format(Locale.ROOT, "%-52s %12.1f %10.1f %12.0f %10.1f",
+                            r.name, r.nanosPerTick, r.stdDev, r.nanosPerTick == 0 ? 0 : 1e9 / r.nanosPerTick, r.bytesPerTick));
+                    if (checkAllocation && r.bytesPerTick > 0) {
+                        System.out.println("  FAIL: steady-state tick allocates " + r.bytesPerTick + " bytes");
+                        failures[0]++;
+                    }
+                } catch (Exception | Error e) {
+                    System.out.println(String.format(Locale.ROOT, "%-52s skipped: %s", scenario.name, e));
+                }
+            }
+        });
+        System.exit(failures[0] == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,131 @@
+import java.awt.Canvas;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
+import java.util.function.Consumer;
+import javax.swing.JComponent;
+
+/**
+ * Heavyweight surface for active rendering. The {@link GameLoop} thread draws each frame into
+ * the canvas' back buffer and flips it; Swing never paints it. Key events arrive on the EDT and
+ * are handed to the game's own key listeners on the loop thread, so all game code keeps running
+ * on a single thread.
+ */
+public class GameCanvas extends Canvas implements KeyListener {
+    private final GameLoop loop;
+    private final JComponent game;
+    private final Consumer<Graphics> renderer;
+    private final PhaseProfiler profiler;
+
+    private GameCanvas(GameLoop loop, JComponent game, Consumer<Graphics> renderer, PhaseProfiler profiler) {
+        this.loop = loop;
+        this.game = game;
+        this.renderer = renderer;
+        this.profiler = profiler;
+        setPreferredSize(game.getPreferredSize());
+        setBackground(game.getBackground());
+        setIgnoreRepaint(true);
+        setFocusable(true);
+        addKeyListener(this);
+        // Lets a game drop held keys whose release it will never see.
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                loop.post(() -> {
+                    for (FocusListener listener : game.getFocusListeners()) {
+                        listener.focusLost(e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns the component to put in the game's window: the game panel itself, or an actively
+     * rendered canvas drawing through {@code renderer} when a {@link GameLoop} is running.
+     */
+    public static Component host(JComponent game, Consumer<Graphics> renderer) {
+        return host(game, renderer, null);
+    }
+
+    /** As {@link #host(JComponent, Consumer)}, timing each buffer flip as the present phase. */
+    public static Component host(JComponent game, Consumer<Graphics> renderer, PhaseProfiler profiler) {
+        GameLoop loop = GameLoop.active();
+        return loop == null ? game : new GameCanvas(loop, game, renderer, profiler);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        loop.setCanvas(this);
+    }
+
+    @Override
+    public void removeNotify() {
+        loop.setCanvas(null);
+        super.removeNotify();
+    }
+
+    void render() {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+        try {
+            do {
+                do {
+                    Graphics g = strategy.getDrawGraphics();
+                    try {
+                        g.setColor(getBackground());
+                        g.fillRect(0, 0, getWidth(), getHeight());
+                        renderer.accept(g);
+                    } finally {
+                        g.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                long t = System.nanoTime();
+                strategy.show();
+                if (profiler != null) {
+                    profiler.lap(PhaseProfiler.PRESENT, t);
+                }
+            } while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+        } catch (IllegalStateException e) {
+            // The peer went away while a frame was in flight; the next frame picks up the new state.
+        }
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        loop.post(() -> {
+            for (KeyListener listener : game.getKeyListeners()) {
+                listener.keyPressed(e);
+            }
+        });
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        loop.post(() -> {
+            for (KeyListener listener : game.getKeyListeners()) {
+                listener.keyReleased(e);
+            }
+        });
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+        loop.post(() -> {
+            for (KeyListener listener : game.getKeyListeners()) {
+                listener.keyTyped(e);
+            }
+        });
+    }
+}
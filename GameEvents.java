@@ -0,0 +1,121 @@
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events for the games, shown under "Games" in JDK Mission Control next to
+ * GC pauses and thread stalls. Call sites go through {@link #begin} and {@link #end}: an event
+ * object is only created while a recording has its type enabled, and only committed if it ran
+ * over its threshold, so without a recording a tick costs a flag check and allocates nothing.
+ * Thresholds can be lowered per event in a {@code .jfc} file, e.g.
+ * {@code games.Tick#threshold=0 ms} to capture every tick.
+ *
+ * <pre>
+ *   java -XX:StartFlightRecording=filename=games.jfr SpaceGame
+ * </pre>
+ */
+public final class GameEvents {
+    static final EventType TICK = EventType.getEventType(Tick.class);
+    static final EventType COLLISION = EventType.getEventType(Collision.class);
+    static final EventType ASSET_LOAD = EventType.getEventType(AssetLoad.class);
+    static final EventType HIGH_SCORE_WRITE = EventType.getEventType(HighScoreWrite.class);
+
+    private GameEvents() {
+    }
+
+    /** Creates and begins an event of {@code type}, or returns null if no recording enables it. */
+    static <T extends Event> T begin(EventType type, Supplier<T> factory) {
+        if (!type.isEnabled()) {
+            return null;
+        }
+        T event = factory.get();
+        event.begin();
+        return event;
+    }
+
+    /** Ends {@code event} and tells whether to fill it in and commit it; false for null. */
+    static boolean end(Event event) {
+        if (event == null) {
+            return false;
+        }
+        event.end();
+        return event.shouldCommit();
+    }
+
+    @Name("games.Tick")
+    @Label("Game Tick")
+    @Category("Games")
+    @Description("One simulation step of a game, including handing the result to the renderer")
+    @Threshold("2 ms")
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Game")
+        public String game;
+
+        @Label("Tick")
+        public long tick;
+
+        @Label("Entities")
+        public int entities;
+    }
+
+    @Name("games.Collision")
+    @Label("Collision Resolution")
+    @Category("Games")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class Collision extends Event {
+        @Label("Game")
+        public String game;
+
+        @Label("Targets")
+        public int targets;
+
+        @Label("Projectiles")
+        public int projectiles;
+
+        @Label("Hits")
+        public int hits;
+    }
+
+    @Name("games.AssetLoad")
+    @Label("Asset Load")
+    @Category("Games")
+    @Description("Decoding an image from disk or the class path")
+    @Threshold("0 ms")
+    public static final class AssetLoad extends Event {
+        @Label("Name")
+        public String name;
+
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+
+        @Label("Missing")
+        public boolean missing;
+    }
+
+    @Name("games.HighScoreWrite")
+    @Label("High Score Write")
+    @Category("Games")
+    @Threshold("0 ms")
+    @StackTrace(false)
+    public static final class HighScoreWrite extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Score")
+        public int score;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+}
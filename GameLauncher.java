@@ -0,0 +1,207 @@
+import java.awt.BorderLayout;
+import java.awt.CardLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridBagLayout;
+import java.awt.GridLayout;
+import java.awt.KeyboardFocusManager;
+import java.awt.event.KeyEvent;
+import java.util.function.Supplier;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+
+/**
+ * All five games in one window and one JVM. A menu card lists them; picking one (click or keys
+ * 1-5) preloads its sprites and shows it, and Escape stops it and returns to the menu. Only the
+ * game on screen exists: leaving one stops its timers and threads and drops the panel, while
+ * the sprite cache, fonts and game loop stay warm, so returning to a game is immediate.
+ *
+ * <pre>
+ *   java GameLauncher [--active]
+ * </pre>
+ */
+public class GameLauncher {
+    private static final String MENU = "menu";
+    private static final String GAME = "game";
+    private static final Dimension MENU_SIZE = new Dimension(480, 480);
+    private static final Dimension HIDDEN = new Dimension(0, 0);
+
+    /** A game on screen: what to show and how to stop it. */
+    private static final class Session {
+        final Component view;
+        final Runnable stop;
+
+        Session(Component view, Runnable stop) {
+            this.view = view;
+            this.stop = stop;
+        }
+    }
+
+    private static final class Entry {
+        final String title;
+        final Dimension size;
+        final AssetPreloader.Sprite[] assets;
+        final Supplier<Session> start;
+
+        Entry(String title, int width, int height, AssetPreloader.Sprite[] assets, Supplier<Session> start) {
+            this.title = title;
+            this.size = new Dimension(width, height);
+            this.assets = assets;
+            this.start = start;
+        }
+    }
+
+    private static final Entry[] GAMES = {
+        new Entry("Space Rocket", SpaceSimulation.WIDTH, SpaceSimulation.HEIGHT, SpaceGame.ASSETS, () -> {
+            SpaceGame game = new SpaceGame();
+            return new Session(GameCanvas.host(game, game::render, game.profiler), game::stop);
+        }),
+        new Entry("Car Racing", CarSimulation.WIDTH, CarSimulation.HEIGHT, CarGame.ASSETS, () -> {
+            CarGame game = new CarGame();
+            return new Session(GameCanvas.host(game, game::render), game::stop);
+        }),
+        new Entry("Snake", SnakeGame.DEFAULT_WIDTH, SnakeGame.DEFAULT_HEIGHT, SnakeGame.ASSETS, () -> {
+            SnakeGame game = new SnakeGame();
+            return new Session(GameCanvas.host(game, game::render), game::stop);
+        }),
+        new Entry("Hero", HeroSimulation.WIDTH, HeroSimulation.HEIGHT, HeroGame.ASSETS, () -> {
+            HeroGame game = new HeroGame();
+            return new Session(GameCanvas.host(game, game::render), game::stop);
+        }),
+        new Entry("Flappy Bird", FlappySimulation.WIDTH, FlappySimulation.HEIGHT, FlappyBird.ASSETS, () -> {
+            FlappyBird game = new FlappyBird();
+            return new Session(GameCanvas.host(game, game::draw), game::stop);
+        })
+    };
+
+    private final JFrame frame = new JFrame("Java Casual Games");
+    private final CardLayout cards = new CardLayout();
+    private final JPanel root = new JPanel(cards);
+    private final JPanel menu = new JPanel(new GridBagLayout());
+    private final JPanel stage = new JPanel(new BorderLayout());
+    private Session current;
+    // Bumped whenever the stage changes, so a load that finishes after the player has moved on
+    // is dropped instead of shown.
+    private int generation;
+
+    private GameLauncher() {
+        JPanel buttons = new JPanel(new GridLayout(0, 1, 0, 10));
+        buttons.setOpaque(false);
+        JLabel title = new JLabel("Choose a game", SwingConstants.CENTER);
+        title.setForeground(Color.WHITE);
+        title.setFont(HudText.font(Font.BOLD, 30));
+        buttons.add(title);
+        for (int i = 0; i < GAMES.length; i++) {
+            int index = i;
+            JButton button = new JButton((i + 1) + "  " + GAMES[i].title);
+            button.setFont(HudText.font(Font.BOLD, 20));
+            button.setFocusable(false);
+            button.addActionListener(e -> open(index));
+            buttons.add(button);
+        }
+        JLabel hint = new JLabel("Esc returns here", SwingConstants.CENTER);
+        hint.setForeground(Color.LIGHT_GRAY);
+        buttons.add(hint);
+
+        menu.setBackground(Color.BLACK);
+        menu.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        menu.add(buttons);
+        stage.setBackground(Color.BLACK);
+
+        root.add(menu, MENU);
+        root.add(stage, GAME);
+        frame.add(root);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setResizable(false);
+
+        // Games get their keys through their own listeners, on a panel or a heavyweight canvas,
+        // so the launcher's keys are taken before focus dispatch.
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(e -> {
+            if (e.getID() != KeyEvent.KEY_PRESSED || !frame.isFocused()) {
+                return false;
+            }
+            if (e.getKeyCode() == KeyEvent.VK_ESCAPE && stageInUse()) {
+                showMenu();
+                return true;
+            }
+            int index = e.getKeyCode() - KeyEvent.VK_1;
+            if (!stageInUse() && index >= 0 && index < GAMES.length) {
+                open(index);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private boolean stageInUse() {
+        return stage.getComponentCount() > 0;
+    }
+
+    private void open(int index) {
+        Entry entry = GAMES[index];
+        int opened = ++generation;
+        AssetPreloader.LoadingScreen loading = new AssetPreloader.LoadingScreen(entry.size, entry.assets.length);
+        setStage(loading);
+        frame.setTitle(entry.title);
+        AssetPreloader.preload(entry.assets, loading)
+                .whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+                    if (opened != generation) {
+                        return;
+                    }
+                    Session session = entry.start.get();
+                    setStage(session.view);
+                    current = session;
+                    session.view.requestFocusInWindow();
+                }));
+    }
+
+    private void showMenu() {
+        generation++;
+        unload();
+        stage.removeAll();
+        frame.setTitle("Java Casual Games");
+        cards.show(root, MENU);
+        fit(menu);
+    }
+
+    private void setStage(Component view) {
+        unload();
+        stage.removeAll();
+        stage.add(view);
+        cards.show(root, GAME);
+        fit(view);
+    }
+
+    private void unload() {
+        if (current != null) {
+            current.stop.run();
+            current = null;
+        }
+    }
+
+    // The card layout sizes to its largest card, so only the visible one gets a preferred size.
+    private void fit(Component visible) {
+        menu.setPreferredSize(visible == menu ? MENU_SIZE : HIDDEN);
+        stage.setPreferredSize(visible == menu ? HIDDEN : visible.getPreferredSize());
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            if (GameLoop.requested(args)) {
+                GameLoop.start();
+            }
+            GameLauncher launcher = new GameLauncher();
+            launcher.showMenu();
+            launcher.frame.setVisible(true);
+        });
+    }
+}
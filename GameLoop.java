@@ -0,0 +1,186 @@
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Active-rendering game loop. A single thread owns the game while it runs: it executes queued
+ * tasks (forwarded key events), fires every running {@link GameTimer} on a fixed-rate
+ * {@code System.nanoTime} schedule and presents a frame through the current {@link GameCanvas}
+ * at the display's refresh rate. Between deadlines it parks, then spins for the last few hundred
+ * microseconds so that wake-up jitter does not turn into frame jitter.
+ *
+ * <p>Active rendering is opt-in per game: pass {@code --active} on the command line (or set
+ * {@code -Dgames.active=true}) and the game's timers and painting move onto the loop.
+ * {@link #startDedicated(String)} creates further loops without a canvas, for running a game's
+ * simulation on its own thread; {@link #shutdown()} ends one when its game is closed.
+ */
+public final class GameLoop implements Runnable {
+    private static final long SPIN_NANOS = 250_000L;
+    private static final int MAX_CATCH_UP_PERIODS = 5;
+    private static final long IDLE_NANOS = 100_000_000L;
+
+    private static volatile GameLoop active;
+
+    private final CopyOnWriteArrayList<GameTimer> timers = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final long frameNanos;
+    private volatile GameCanvas canvas;
+    private Thread thread;
+    private volatile boolean woken;
+    private volatile boolean stopped;
+
+    private GameLoop(int framesPerSecond) {
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+    }
+
+    public static boolean requested(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--active")) {
+                return true;
+            }
+        }
+        return Boolean.getBoolean("games.active");
+    }
+
+    /** Starts the shared loop thread if it is not running yet. Timers created afterwards use it. */
+    public static synchronized GameLoop start() {
+        if (active == null) {
+            active = launch("game-loop");
+        }
+        return active;
+    }
+
+    /** Starts a separate loop thread that only fires the timers explicitly bound to it. */
+    public static GameLoop startDedicated(String name) {
+        return launch(name);
+    }
+
+    private static GameLoop launch(String name) {
+        GameLoop loop = new GameLoop(frameRate());
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        loop.thread = thread;
+        thread.start();
+        return loop;
+    }
+
+    /** Frames per second to draw at: {@code -Dgames.fps}, or else the display's refresh rate. */
+    public static int frameRate() {
+        return Integer.getInteger("games.fps", refreshRate());
+    }
+
+    /** Returns the running loop, or null when games are driven by Swing timers. */
+    public static GameLoop active() {
+        return active;
+    }
+
+    /** Runs {@code task} on the loop thread before the next tick. */
+    public void post(Runnable task) {
+        tasks.add(task);
+        wake();
+    }
+
+    /** Ends the loop thread after its current iteration. Timers still bound to it stop firing. */
+    public void shutdown() {
+        stopped = true;
+        wake();
+    }
+
+    void add(GameTimer timer) {
+        timers.addIfAbsent(timer);
+        wake();
+    }
+
+    void remove(GameTimer timer) {
+        timers.remove(timer);
+    }
+
+    void setCanvas(GameCanvas canvas) {
+        this.canvas = canvas;
+    }
+
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        while (!stopped) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                runSafely(task);
+            }
+
+            long now = System.nanoTime();
+            GameCanvas target = canvas;
+            long wake = target != null ? nextFrame : now + IDLE_NANOS;
+            for (GameTimer timer : timers) {
+                if (now - timer.nextFire >= 0 && timer.isRunning()) {
+                    runSafely(timer::fire);
+                    long period = timer.periodNanos();
+                    timer.nextFire += period;
+                    if (now - timer.nextFire > MAX_CATCH_UP_PERIODS * period) {
+                        timer.nextFire = now + period;
+                    }
+                }
+                if (timer.nextFire - wake < 0) {
+                    wake = timer.nextFire;
+                }
+            }
+
+            if (target != null && now - nextFrame >= 0) {
+                runSafely(target::render);
+                nextFrame += frameNanos;
+                if (now - nextFrame > frameNanos) {
+                    nextFrame = now + frameNanos;
+                }
+                if (nextFrame - wake < 0) {
+                    wake = nextFrame;
+                }
+            }
+
+            sleepUntil(wake);
+        }
+    }
+
+    private void wake() {
+        woken = true;
+        LockSupport.unpark(thread);
+    }
+
+    // Returns early when a task is posted or a timer is started, so neither waits for a deadline
+    // that was computed before it existed.
+    private void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            if (woken) {
+                woken = false;
+                return;
+            }
+            LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+        }
+        while (deadline - System.nanoTime() > 0 && !woken) {
+            Thread.onSpinWait();
+        }
+        woken = false;
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int refreshRate() {
+        if (!GraphicsEnvironment.isHeadless()) {
+            int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode().getRefreshRate();
+            if (rate != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                return rate;
+            }
+        }
+        return 60;
+    }
+}
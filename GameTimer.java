@@ -0,0 +1,82 @@
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
+
+/**
+ * The subset of {@link javax.swing.Timer} the games use, with two backends. Normally it is a
+ * Swing timer firing on the EDT. When a {@link GameLoop} is active at construction time, the
+ * timer is instead fired by the loop thread on a fixed-rate {@code System.nanoTime} schedule,
+ * which also allows periods that are not a whole number of milliseconds.
+ */
+public class GameTimer {
+    private final ActionListener listener;
+    private final ActionEvent event;
+    private final Timer swingTimer;
+    private final GameLoop loop;
+    private volatile long periodNanos;
+    private volatile boolean running;
+    long nextFire;
+
+    public GameTimer(int delay, ActionListener listener) {
+        this(delay * 1_000_000L, delay, listener, GameLoop.active());
+    }
+
+    /** A timer fired by {@code loop}'s thread, whether or not active rendering is on. */
+    public GameTimer(int delay, ActionListener listener, GameLoop loop) {
+        this(delay * 1_000_000L, delay, listener, loop);
+    }
+
+    /**
+     * A timer firing {@code ticksPerSecond} times a second. On the Swing backend the period is
+     * truncated to whole milliseconds, as {@code new Timer(1000 / ticksPerSecond, ...)} would.
+     */
+    public static GameTimer atRate(int ticksPerSecond, ActionListener listener) {
+        return new GameTimer(1_000_000_000L / ticksPerSecond, 1000 / ticksPerSecond, listener, GameLoop.active());
+    }
+
+    private GameTimer(long periodNanos, int delayMillis, ActionListener listener, GameLoop loop) {
+        this.listener = listener;
+        this.event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, null);
+        this.periodNanos = periodNanos;
+        this.loop = loop;
+        this.swingTimer = loop == null ? new Timer(delayMillis, listener) : null;
+    }
+
+    public void start() {
+        if (swingTimer != null) {
+            swingTimer.start();
+        } else if (!running) {
+            running = true;
+            nextFire = System.nanoTime() + periodNanos;
+            loop.add(this);
+        }
+    }
+
+    public void stop() {
+        if (swingTimer != null) {
+            swingTimer.stop();
+        } else if (running) {
+            running = false;
+            loop.remove(this);
+        }
+    }
+
+    public void setDelay(int delay) {
+        periodNanos = delay * 1_000_000L;
+        if (swingTimer != null) {
+            swingTimer.setDelay(delay);
+        }
+    }
+
+    public boolean isRunning() {
+        return swingTimer != null ? swingTimer.isRunning() : running;
+    }
+
+    long periodNanos() {
+        return periodNanos;
+    }
+
+    void fire() {
+        listener.actionPerformed(event);
+    }
+}
@@ -1,45 +1,38 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Random;
-import java.util.Scanner;
-import javax.imageio.ImageIO;
 import javax.swing.*;
 
 public class HeroGame extends JPanel implements ActionListener, KeyListener {
-    private final int WIDTH = 800;
-    private final int HEIGHT = 500; 
-    private final int HERO_WIDTH = 80; 
-    private final int HERO_HEIGHT = 60; 
-    private final int GRAVITY = 1; 
-    private final int JUMP_STRENGTH = 10; 
-    private final int MAX_BULLETS = 4; 
-
-    private Timer timer;
-    private int heroY; 
-    private int heroVelocity; 
-    private ArrayList<Bullet> bullets; 
-    private ArrayList<Image> bulletImages;
+    static final AssetPreloader.Sprite[] ASSETS = {
+        AssetPreloader.sprite("gamebg.png", HeroSimulation.WIDTH, HeroSimulation.HEIGHT),
+        AssetPreloader.sprite("hero.png", HeroSimulation.HERO_WIDTH, HeroSimulation.HERO_HEIGHT),
+        AssetPreloader.sprite("laser1.png", HeroSimulation.BULLET_WIDTH, HeroSimulation.BULLET_HEIGHT),
+        AssetPreloader.sprite("laser2.png", HeroSimulation.BULLET_WIDTH, HeroSimulation.BULLET_HEIGHT),
+        AssetPreloader.sprite("laser3.png", HeroSimulation.BULLET_WIDTH, HeroSimulation.BULLET_HEIGHT)
+    };
+
+    private final int WIDTH = HeroSimulation.WIDTH;
+    private final int HEIGHT = HeroSimulation.HEIGHT;
+    private final int HERO_WIDTH = HeroSimulation.HERO_WIDTH; 
+    private final int HERO_HEIGHT = HeroSimulation.HERO_HEIGHT; 
+
+    private GameTimer timer;
+    private final FixedTimestep clock = FixedTimestep.ofMillis(HeroSimulation.TICK_MILLIS);
+    private final HeroSimulation sim;
+    private final InputLog inputLog;
+    private int pendingInput;
+    private int savedHighScore;
+    private int previousHeroY;
+    private int previousBgX;
+    private Image[] bulletImages;
     private Image heroImage;
-    private Image backgroundImage;
-    private int score; 
-    private int highScore; 
-    private boolean gameOver; 
-    private int bgX = 0; 
-    private long startTime; 
-
-    private class Bullet {
-        int type; 
-        Rectangle rect;
-
-        Bullet(int type, int x, int y, int width, int height) {
-            this.type = type;
-            this.rect = new Rectangle(x, y, width, height);
-        }
-    }
+    private ScrollingBackground backgroundImage;
+    private final HighScoreStore highScores = HighScoreStore.forGame("hero", "highscore.txt");
+    private final HudText scoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText highScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText gameOverText = new HudText("Game Over!", HudText.font(Font.BOLD, 40), Color.WHITE);
+    private final HudText restartText = new HudText("Press SPACE to Restart", HudText.font(Font.BOLD, 40), Color.WHITE);
 
     public HeroGame() {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
@@ -47,173 +40,123 @@ public class HeroGame extends JPanel implements ActionListener, KeyListener {
         setFocusable(true);
         addKeyListener(this);
 
-        try {
-            heroImage = ImageIO.read(new File("hero.png")); 
-            backgroundImage = ImageIO.read(new File("gamebg.png")); 
+        long seed = new Random().nextLong();
+        sim = new HeroSimulation(seed);
+        inputLog = InputLog.startRecording("hero", seed);
 
-        
-            bulletImages = new ArrayList<>();
-            bulletImages.add(ImageIO.read(new File("laser1.png"))); 
-            bulletImages.add(ImageIO.read(new File("laser2.png"))); 
-            bulletImages.add(ImageIO.read(new File("laser3.png"))); 
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        heroImage = SpriteAtlas.get("hero.png", HERO_WIDTH, HERO_HEIGHT); 
+        backgroundImage = new ScrollingBackground("gamebg.png", WIDTH, HEIGHT, false); 
 
-        initializeGame();
+        
+        bulletImages = new Image[]{
+            SpriteAtlas.get("laser1.png", HeroSimulation.BULLET_WIDTH, HeroSimulation.BULLET_HEIGHT),
+            SpriteAtlas.get("laser2.png", HeroSimulation.BULLET_WIDTH, HeroSimulation.BULLET_HEIGHT),
+            SpriteAtlas.get("laser3.png", HeroSimulation.BULLET_WIDTH, HeroSimulation.BULLET_HEIGHT)
+        };
+
+        savedHighScore = highScores.load();
+        sim.setHighScore(savedHighScore);
+        previousHeroY = sim.getHeroY();
+        // The timer fires once per display frame; the clock decides how many 30 ms steps are due.
+        timer = GameTimer.atRate(GameLoop.frameRate(), this);
+        clock.reset();
+        timer.start();
     }
 
-    private void initializeGame() {
-        heroY = HEIGHT / 2; 
-        heroVelocity = 0;
-        bullets = new ArrayList<>();
-        score = 0;
-        highScore = loadHighScore();
-        gameOver = false;
-        bgX = 0; 
-        startTime = System.currentTimeMillis(); 
-
-        if (timer != null) {
-            timer.stop();
+    private void restartGame() {
+        pendingInput = 0;
+        sim.reset();
+        if (inputLog != null) {
+            inputLog.recordReset();
         }
-        timer = new Timer(30, this); 
+        previousHeroY = sim.getHeroY();
+        previousBgX = sim.getBgX();
+        clock.reset();
         timer.start();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        render(g);
+    }
 
+    // Draws the state alpha of the way from the previous step to the current one.
+    void render(Graphics g) {
+        float alpha = sim.isGameOver() ? 1f : clock.alpha();
        
-        g.drawImage(backgroundImage, bgX, 0, WIDTH, HEIGHT, this);
-        g.drawImage(backgroundImage, bgX + WIDTH, 0, WIDTH, HEIGHT, this);
+        int scroll = sim.getBgX() - previousBgX;
+        if (scroll > 0) {
+            scroll -= WIDTH;
+        }
+        backgroundImage.draw(g, previousBgX + Math.round(scroll * alpha));
 
       
-        g.drawImage(heroImage, 100, heroY, HERO_WIDTH, HERO_HEIGHT, this);
+        g.drawImage(heroImage, HeroSimulation.HERO_X, FixedTimestep.lerp(previousHeroY, sim.getHeroY(), alpha), null);
 
       
-        for (Bullet bullet : bullets) {
-            Image bulletImage = bulletImages.get(bullet.type); // Get image based on type
-            g.drawImage(bulletImage, bullet.rect.x, bullet.rect.y, bullet.rect.width, bullet.rect.height, this);
+        EntityStore bullets = sim.getBullets();
+        int behind = Math.round(sim.getBulletSpeed() * (1 - alpha));
+        for (int i = 0; i < bullets.size(); i++) {
+            g.drawImage(bulletImages[bullets.type[i]], bullets.x[i] + behind, bullets.y[i], null);
         }
 
       
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 20));
-        g.drawString("Score: " + score, 10, 30);
-        g.drawString("High Score: " + highScore, 10, 60);
+        scoreText.draw(g, sim.getScore(), 10, 30);
+        highScoreText.draw(g, sim.getHighScore(), 10, 60);
 
      
-        if (gameOver) {
-            g.setFont(new Font("Arial", Font.BOLD, 40));
-            g.drawString("Game Over!", WIDTH / 2 - 100, HEIGHT / 2);
-            g.drawString("Press SPACE to Restart", WIDTH / 2 - 200, HEIGHT / 2 + 50);
+        if (sim.isGameOver()) {
+            gameOverText.draw(g, WIDTH / 2 - 100, HEIGHT / 2);
+            restartText.draw(g, WIDTH / 2 - 200, HEIGHT / 2 + 50);
         }
     }
 
-    private void update() {
-        if (gameOver) {
+    void update() {
+        if (sim.isGameOver()) {
             return;
         }
 
-     
-        heroY += heroVelocity;
-        heroVelocity += GRAVITY; 
-
-       
-        if (heroY < 0) {
-            heroY = 0;
-        } else if (heroY + HERO_HEIGHT > HEIGHT) {
-            heroY = HEIGHT - HERO_HEIGHT;
-        }
-
-     
-        if (bullets.size() < MAX_BULLETS && new Random().nextInt(100) < 3) {
-            int bulletType = new Random().nextInt(3); 
-            int bulletWidth = HERO_WIDTH; 
-            int bulletHeight = HERO_HEIGHT;
-            int bulletY = new Random().nextInt(HEIGHT - bulletHeight); 
-            bullets.add(new Bullet(bulletType, WIDTH, bulletY, bulletWidth, bulletHeight));
-        }
-
-        long currentTime = System.currentTimeMillis();
-        long elapsedTime = (currentTime - startTime) / 1000; 
-        int bulletSpeed = 5 + (int) (elapsedTime / 10); 
-        for (Bullet bullet : bullets) {
-            bullet.rect.x -= bulletSpeed; 
-        }
-
-        
-        bullets.removeIf(bullet -> bullet.rect.x + bullet.rect.width < 0);
-
-   
-        bgX -= 2; 
-        if (bgX <= -WIDTH) {
-            bgX = 0; 
-        }
-
- 
-        Rectangle heroRect = new Rectangle(100, heroY, HERO_WIDTH, HERO_HEIGHT);
-        for (Bullet bullet : bullets) {
-            if (heroRect.intersects(bullet.rect)) {
-                gameOver = true;
-                if (score > highScore) {
-                    highScore = score;
-                    saveHighScore(highScore);
-                }
-                break;
-            }
-        }
-
-        if (!gameOver) {
-            score++;
+        GameEvents.Tick event = GameEvents.begin(GameEvents.TICK, GameEvents.Tick::new);
+        previousHeroY = sim.getHeroY();
+        previousBgX = sim.getBgX();
+        int input = pendingInput;
+        pendingInput = 0;
+        sim.step(input);
+        if (inputLog != null) {
+            inputLog.recordStep(input);
         }
 
-        repaint();
-    }
-
-    private void jump() {
-        heroVelocity = -JUMP_STRENGTH;
-    }
-
-   
-    private int loadHighScore() {
-        try {
-            File file = new File("highscore.txt");
-            if (file.exists()) {
-                Scanner scanner = new Scanner(file);
-                if (scanner.hasNextInt()) {
-                    return scanner.nextInt();
-                }
-                scanner.close();
+        if (sim.isGameOver()) {
+            timer.stop();
+            if (sim.getHighScore() > savedHighScore) {
+                savedHighScore = sim.getHighScore();
+                highScores.save(savedHighScore);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return 0; 
-    }
-
-   
-    private void saveHighScore(int highScore) {
-        try (FileWriter writer = new FileWriter("highscore.txt")) {
-            writer.write(Integer.toString(highScore));
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (GameEvents.end(event)) {
+            event.game = "hero";
+            event.tick = sim.getTick();
+            event.entities = sim.getBullets().size();
+            event.commit();
         }
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        update();
+        for (int steps = clock.advance(); steps > 0 && !sim.isGameOver(); steps--) {
+            update();
+        }
+        repaint();
     }
 
     @Override
     public void keyPressed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-            if (gameOver) {
-                initializeGame(); 
+            if (sim.isGameOver()) {
+                restartGame(); 
             } else {
-                jump(); 
+                pendingInput |= HeroSimulation.INPUT_JUMP; 
             }
         }
     }
@@ -224,12 +167,25 @@ public class HeroGame extends JPanel implements ActionListener, KeyListener {
     @Override
     public void keyTyped(KeyEvent e) {}
 
+    /** Stops the game for good, e.g. when the launcher switches to another one. */
+    void stop() {
+        timer.stop();
+        if (inputLog != null) {
+            inputLog.finish();
+        }
+    }
+
     public static void main(String[] args) {
-        JFrame frame = new JFrame("Hero Game");
-        HeroGame game = new HeroGame();
-        frame.add(game);
-        frame.pack();
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setVisible(true);
+        SwingUtilities.invokeLater(() -> {
+            if (GameLoop.requested(args)) {
+                GameLoop.start();
+            }
+            JFrame frame = new JFrame("Hero Game");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            AssetPreloader.show(frame, new Dimension(HeroSimulation.WIDTH, HeroSimulation.HEIGHT), ASSETS, () -> {
+                HeroGame game = new HeroGame();
+                return GameCanvas.host(game, game::render);
+            });
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+import java.util.Random;
+
+/**
+ * Display-free HeroGame state, advanced one 30 ms tick at a time by {@link #step(int)}. Bullets
+ * speed up with the time survived, which is measured in ticks rather than wall-clock time so a
+ * run plays out the same however late the timer fires.
+ */
+public class HeroSimulation implements Simulation {
+    public static final int INPUT_JUMP = 1;
+
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 500;
+    public static final int HERO_X = 100;
+    public static final int HERO_WIDTH = 80;
+    public static final int HERO_HEIGHT = 60;
+    public static final int BULLET_WIDTH = HERO_WIDTH;
+    public static final int BULLET_HEIGHT = HERO_HEIGHT;
+    public static final int BULLET_TYPES = 3;
+    public static final int TICK_MILLIS = 30;
+
+    private static final int GRAVITY = 1;
+    private static final int JUMP_STRENGTH = 10;
+    private static final int MAX_BULLETS = 4;
+
+    private final Random rand;
+    private final EntityStore bullets = new EntityStore(MAX_BULLETS);
+    private int heroY;
+    private int heroVelocity;
+    private int score;
+    private int highScore;
+    private boolean gameOver;
+    private int bgX;
+    private int bulletSpeed;
+    private long tick;
+
+    public HeroSimulation(long seed) {
+        this.rand = new Random(seed);
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        heroY = HEIGHT / 2;
+        heroVelocity = 0;
+        bullets.clear();
+        score = 0;
+        gameOver = false;
+        bgX = 0;
+        bulletSpeed = 0;
+        tick = 0;
+    }
+
+    @Override
+    public void step(int input) {
+        if (gameOver) {
+            return;
+        }
+        if ((input & INPUT_JUMP) != 0) {
+            heroVelocity = -JUMP_STRENGTH;
+        }
+
+        heroY += heroVelocity;
+        heroVelocity += GRAVITY;
+
+        if (heroY < 0) {
+            heroY = 0;
+        } else if (heroY + HERO_HEIGHT > HEIGHT) {
+            heroY = HEIGHT - HERO_HEIGHT;
+        }
+
+        if (bullets.size() < MAX_BULLETS && rand.nextInt(100) < 3) {
+            int bulletType = rand.nextInt(BULLET_TYPES);
+            int bulletY = rand.nextInt(HEIGHT - BULLET_HEIGHT);
+            bullets.add(WIDTH, bulletY, bulletType);
+        }
+
+        bulletSpeed = 5 + (int) (tick * TICK_MILLIS / 10_000);
+        for (int i = 0; i < bullets.size(); ) {
+            bullets.x[i] -= bulletSpeed;
+            if (bullets.x[i] + BULLET_WIDTH < 0) {
+                bullets.remove(i);
+            } else {
+                i++;
+            }
+        }
+
+        bgX -= 2;
+        if (bgX <= -WIDTH) {
+            bgX = 0;
+        }
+
+        for (int i = 0; i < bullets.size(); i++) {
+            if (HERO_X < bullets.x[i] + BULLET_WIDTH && bullets.x[i] < HERO_X + HERO_WIDTH
+                    && heroY < bullets.y[i] + BULLET_HEIGHT && bullets.y[i] < heroY + HERO_HEIGHT) {
+                gameOver = true;
+                if (score > highScore) {
+                    highScore = score;
+                }
+                break;
+            }
+        }
+
+        if (!gameOver) {
+            score++;
+        }
+        tick++;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getHeroY() {
+        return heroY;
+    }
+
+    public int getBgX() {
+        return bgX;
+    }
+
+    /** How far the bullets moved on the last step. */
+    public int getBulletSpeed() {
+        return bulletSpeed;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public void setHighScore(int highScore) {
+        this.highScore = highScore;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+
+    EntityStore getBullets() {
+        return bullets;
+    }
+}
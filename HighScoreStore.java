@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-game high score persistence. {@link #save(int)} only records the new best in memory; a
+ * background writer thread picks it up, waits briefly so a burst of new records becomes one
+ * write, and replaces {@code <game>_highscore.txt} atomically by writing a synced temp file and
+ * moving it over the old one. A shutdown hook writes whatever is still pending.
+ */
+public final class HighScoreStore {
+    private static final long COALESCE_MILLIS = 250;
+    private static final Map<String, HighScoreStore> STORES = new ConcurrentHashMap<>();
+    private static final BlockingQueue<HighScoreStore> DIRTY = new LinkedBlockingQueue<>();
+
+    static {
+        Thread writer = new Thread(HighScoreStore::writeBehind, "highscore-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(HighScoreStore::flushAll, "highscore-flush"));
+    }
+
+    private final Path file;
+    private final Path legacyFile;
+    private final AtomicInteger best = new AtomicInteger(-1);
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private int written = -1;
+
+    private HighScoreStore(Path file, Path legacyFile) {
+        this.file = file;
+        this.legacyFile = legacyFile;
+    }
+
+    /** The store for {@code game}, kept in {@code <game>_highscore.txt}. */
+    public static HighScoreStore forGame(String game) {
+        return forGame(game, null);
+    }
+
+    /**
+     * The store for {@code game}. Until it has been written once, scores are read from
+     * {@code legacyFile}, the file the game used before it had its own.
+     */
+    public static HighScoreStore forGame(String game, String legacyFile) {
+        return STORES.computeIfAbsent(game, key -> new HighScoreStore(Paths.get(key + "_highscore.txt"),
+                legacyFile == null ? null : Paths.get(legacyFile)));
+    }
+
+    /** Returns the best score, reading the file on first use. Missing or corrupt files count as 0. */
+    public int load() {
+        int current = best.get();
+        if (current >= 0) {
+            return current;
+        }
+        int stored = read(file);
+        if (stored < 0 && legacyFile != null) {
+            stored = read(legacyFile);
+        }
+        best.accumulateAndGet(Math.max(stored, 0), Math::max);
+        return best.get();
+    }
+
+    /** Records {@code score} if it beats the best so far. Never blocks on I/O. */
+    public void save(int score) {
+        if (score <= best.get()) {
+            return;
+        }
+        best.accumulateAndGet(score, Math::max);
+        if (queued.compareAndSet(false, true)) {
+            DIRTY.add(this);
+        }
+    }
+
+    private static int read(Path path) {
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void writeBehind() {
+        while (true) {
+            try {
+                HighScoreStore store = DIRTY.take();
+                Thread.sleep(COALESCE_MILLIS);
+                store.queued.set(false);
+                store.write();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void flushAll() {
+        for (HighScoreStore store : STORES.values()) {
+            store.write();
+        }
+    }
+
+    private synchronized void write() {
+        int score = best.get();
+        if (score < 0 || score == written) {
+            return;
+        }
+        GameEvents.HighScoreWrite event = GameEvents.begin(GameEvents.HIGH_SCORE_WRITE, GameEvents.HighScoreWrite::new);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.wrap(Integer.toString(score).getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            written = score;
+        } catch (IOException e) {
+            System.err.println("Failed to save high score to " + file + ": " + e.getMessage());
+        }
+        if (GameEvents.end(event)) {
+            event.file = file.toString();
+            event.score = score;
+            event.succeeded = written == score;
+            event.commit();
+        }
+    }
+}
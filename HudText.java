@@ -0,0 +1,81 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One line of HUD text, optionally followed by a number ("Score: 42"). The line is laid out and
+ * rasterised into a translucent image only when the number changes; every other frame it is a
+ * single blit. Fonts are shared process-wide through {@link #font(int, int)}.
+ */
+public class HudText {
+    private static final Map<Integer, Font> FONTS = new ConcurrentHashMap<>();
+    private static final Graphics2D MEASURE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+    private final String prefix;
+    private final boolean numbered;
+    private final Font font;
+    private final Color color;
+    private final FontMetrics metrics;
+    private BufferedImage image;
+    private int value;
+
+    /** A fixed label. */
+    public HudText(String text, Font font, Color color) {
+        this(text, false, font, color);
+    }
+
+    /** A label followed by a number; pass the number to {@link #draw(Graphics, int, int, int)}. */
+    public static HudText numbered(String prefix, Font font, Color color) {
+        return new HudText(prefix, true, font, color);
+    }
+
+    private HudText(String prefix, boolean numbered, Font font, Color color) {
+        this.prefix = prefix;
+        this.numbered = numbered;
+        this.font = font;
+        this.color = color;
+        synchronized (MEASURE) {
+            this.metrics = MEASURE.getFontMetrics(font);
+        }
+    }
+
+    /** The shared Arial font in {@code style} and {@code size}. */
+    public static Font font(int style, int size) {
+        return FONTS.computeIfAbsent(style << 16 | size, key -> new Font("Arial", style, size));
+    }
+
+    /** Draws the fixed label with its baseline at {@code y}, like {@link Graphics#drawString}. */
+    public void draw(Graphics g, int x, int y) {
+        if (image == null) {
+            image = render(prefix);
+        }
+        g.drawImage(image, x, y - metrics.getAscent(), null);
+    }
+
+    /** Draws the label followed by {@code value} with its baseline at {@code y}. */
+    public void draw(Graphics g, int value, int x, int y) {
+        if (image == null || this.value != value) {
+            this.value = value;
+            image = render(numbered ? prefix + value : prefix);
+        }
+        g.drawImage(image, x, y - metrics.getAscent(), null);
+    }
+
+    private BufferedImage render(String text) {
+        int width = Math.max(1, metrics.stringWidth(text));
+        int height = metrics.getAscent() + metrics.getDescent();
+        BufferedImage rendered = SpriteAtlas.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D g2d = rendered.createGraphics();
+        g2d.setFont(font);
+        g2d.setColor(color);
+        g2d.drawString(text, 0, metrics.getAscent());
+        g2d.dispose();
+        return rendered;
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * A recorded session: the game, the seed its {@link Simulation} was built with, and every
+ * {@code step} input and {@code reset} in order. Inputs are run-length encoded as varints, so a
+ * tick with the same input as the one before costs nothing and a long session of mostly idle
+ * ticks is a few kilobytes. Recording never allocates on the tick path once the buffer has grown.
+ *
+ * <p>Games record when {@code -Dgames.record=<dir>} is set; the log is written to
+ * {@code <dir>/<game>-<time>.replay} when the JVM exits, or when the game calls {@link #finish()}.
+ * {@link Replay} plays logs back.
+ *
+ * <p>A log also carries the {@link Replay#revision revision} of its game's rules, and
+ * {@link #read} refuses a log from another revision, since its inputs would no longer play out the
+ * same. Version 1 files predate the field and count as revision 1 of every game.
+ *
+ * <pre>
+ *   file   = "GREC" version:u8 game:utf revision:u8 seed:i64 token*
+ *   token  = run:varint input:varint     (run > 0: step(input) run times)
+ *          | 0:varint                    (reset)
+ * </pre>
+ */
+public final class InputLog {
+    private static final int MAGIC = 0x47524543;
+    private static final int VERSION = 2;
+
+    private final String game;
+    private final int revision;
+    private final long seed;
+    private byte[] tokens;
+    private int length;
+    private int runInput;
+    private int runLength;
+    private Thread saver;
+
+    public InputLog(String game, long seed) {
+        this(game, Replay.revision(game), seed, new byte[256], 0);
+    }
+
+    private InputLog(String game, int revision, long seed, byte[] tokens, int length) {
+        this.game = game;
+        this.revision = revision;
+        this.seed = seed;
+        this.tokens = tokens;
+        this.length = length;
+    }
+
+    /**
+     * Returns a log that is saved on exit if recording is enabled with {@code -Dgames.record},
+     * otherwise null.
+     */
+    public static InputLog startRecording(String game, long seed) {
+        String dir = System.getProperty("games.record");
+        if (dir == null) {
+            return null;
+        }
+        InputLog log = new InputLog(game, seed);
+        Path file = Paths.get(dir, game + "-" + System.currentTimeMillis() + ".replay");
+        log.saver = new Thread(() -> {
+            try {
+                Files.createDirectories(file.getParent());
+                log.write(file);
+            } catch (IOException e) {
+                System.err.println("Failed to save replay " + file + ": " + e.getMessage());
+            }
+        }, "replay-writer");
+        Runtime.getRuntime().addShutdownHook(log.saver);
+        return log;
+    }
+
+    /**
+     * Saves a log from {@link #startRecording} now, in the background, instead of on exit. For
+     * games that are closed while the JVM keeps running; later steps are not saved.
+     */
+    public void finish() {
+        Thread pending = saver;
+        saver = null;
+        if (pending != null && Runtime.getRuntime().removeShutdownHook(pending)) {
+            pending.start();
+        }
+    }
+
+    public String getGame() {
+        return game;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public synchronized void recordStep(int input) {
+        if (runLength > 0 && input != runInput) {
+            flushRun();
+        }
+        runInput = input;
+        runLength++;
+    }
+
+    public synchronized void recordReset() {
+        flushRun();
+        writeVarint(0);
+    }
+
+    private void flushRun() {
+        if (runLength > 0) {
+            writeVarint(runLength);
+            writeVarint(runInput);
+            runLength = 0;
+        }
+    }
+
+    private void writeVarint(int value) {
+        if (length + 5 > tokens.length) {
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        }
+        while ((value & ~0x7F) != 0) {
+            tokens[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        tokens[length++] = (byte) value;
+    }
+
+    /**
+     * Feeds the recorded session into {@code sim}, which must have been built from this log's
+     * seed, calling {@code observer} (if not null) after every step.
+     *
+     * @return the number of steps played
+     */
+    public long replay(Simulation sim, Replay.Observer observer) {
+        byte[] data;
+        int end;
+        int pendingInput;
+        int pendingRun;
+        synchronized (this) {
+            data = tokens;
+            end = length;
+            pendingInput = runInput;
+            pendingRun = runLength;
+        }
+
+        long steps = 0;
+        int pos = 0;
+        while (pos < end) {
+            int run = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                run |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (run == 0) {
+                sim.reset();
+                continue;
+            }
+            int input = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[pos++];
+                input |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            steps += play(sim, input, run, observer);
+        }
+        return steps + play(sim, pendingInput, pendingRun, observer);
+    }
+
+    private static int play(Simulation sim, int input, int run, Replay.Observer observer) {
+        for (int i = 0; i < run; i++) {
+            sim.step(input);
+            if (observer != null) {
+                observer.afterStep(sim);
+            }
+        }
+        return run;
+    }
+
+    public synchronized void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(game);
+            out.writeByte(revision);
+            out.writeLong(seed);
+            out.write(tokens, 0, length);
+            if (runLength > 0) {
+                InputLog tail = new InputLog(game, revision, seed, new byte[10], 0);
+                tail.writeVarint(runLength);
+                tail.writeVarint(runInput);
+                out.write(tail.tokens, 0, tail.length);
+            }
+        }
+    }
+
+    public static InputLog read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replay file: " + file);
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported replay version " + version + ": " + file);
+            }
+            String game = in.readUTF();
+            int revision = version == 1 ? 1 : in.readUnsignedByte();
+            if (revision != Replay.revision(game)) {
+                throw new IOException("Stale replay: recorded with revision " + revision + " of " + game
+                        + ", which now plays revision " + Replay.revision(game) + ": " + file);
+            }
+            long seed = in.readLong();
+            byte[] tokens = in.readAllBytes();
+            return new InputLog(game, revision, seed, tokens, tokens.length);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyboard state for games that read their controls once per tick rather than per key event.
+ * Keys are bound to simulation input bits; the listener methods keep a bitset of the keys held
+ * down, and {@link #sample()} returns it together with any key that was pressed and released
+ * again since the previous sample, so a tap shorter than a tick still counts once. A held key
+ * reads as down on every tick from the first one, whatever the OS auto-repeat delay, and any
+ * number of keys can be held at once.
+ *
+ * <p>The first press after each sample is timestamped with {@code System.nanoTime}, so a game can
+ * carry that time through to the frame that shows its effect and measure input-to-photon
+ * latency. Listener and sampler may run on different threads.
+ */
+public final class InputState implements KeyListener {
+    private static final int KEY_CODES = 256;
+
+    private final int[] bindings = new int[KEY_CODES];
+    private final AtomicInteger held = new AtomicInteger();
+    private final AtomicInteger tapped = new AtomicInteger();
+    private final AtomicLong firstPress = new AtomicLong();
+    private long sampledPress;
+
+    /** Maps {@code keyCode} (one of the {@code KeyEvent.VK_} constants) to input {@code bits}. */
+    public InputState bind(int keyCode, int bits) {
+        if (keyCode < 0 || keyCode >= KEY_CODES) {
+            throw new IllegalArgumentException("Unsupported key code: " + keyCode);
+        }
+        bindings[keyCode] = bits;
+        return this;
+    }
+
+    /** The input bits for this tick: everything held now or pressed since the last sample. */
+    public int sample() {
+        sampledPress = firstPress.getAndSet(0);
+        return held.get() | tapped.getAndSet(0);
+    }
+
+    /**
+     * The {@code System.nanoTime} of the first key press that went into the last
+     * {@link #sample()}, or 0 if it contained none. Only for the sampling thread.
+     */
+    public long sampledPressNanos() {
+        return sampledPress;
+    }
+
+    /** Forgets every key, e.g. when the game restarts or loses focus. */
+    public void clear() {
+        held.set(0);
+        tapped.set(0);
+        firstPress.set(0);
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int bits = bits(e);
+        if (bits == 0) {
+            return;
+        }
+        // Auto-repeat delivers more presses for a key that is already down; only the first counts.
+        int before = held.getAndUpdate(h -> h | bits);
+        if ((before & bits) != bits) {
+            tapped.getAndUpdate(t -> t | bits);
+            firstPress.compareAndSet(0, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        int bits = bits(e);
+        if (bits != 0) {
+            held.getAndUpdate(h -> h & ~bits);
+        }
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    private int bits(KeyEvent e) {
+        int code = e.getKeyCode();
+        return code >= 0 && code < KEY_CODES ? bindings[code] : 0;
+    }
+}
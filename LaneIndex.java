@@ -0,0 +1,81 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Occupancy of the x columns {@code [0, width)} of a spawn row, kept as a sorted list of blocked
+ * intervals. Once the blocked intervals are registered, the free intervals are just the gaps
+ * between them, so a uniformly random free column is found with one random draw and one walk
+ * over the (few) intervals, instead of retrying random columns until one happens to fit.
+ */
+public class LaneIndex {
+    private final int width;
+    private int[] from = new int[8];
+    private int[] to = new int[8];
+    private int count;
+    private int blocked;
+
+    public LaneIndex(int width) {
+        this.width = width;
+    }
+
+    public void clear() {
+        count = 0;
+        blocked = 0;
+    }
+
+    /** Marks the columns {@code [start, end]} as taken. Overlapping ranges are merged. */
+    public void block(int start, int end) {
+        start = Math.max(start, 0);
+        end = Math.min(end, width - 1);
+        if (start > end) {
+            return;
+        }
+
+        int i = 0;
+        while (i < count && to[i] < start - 1) {
+            i++;
+        }
+        int j = i;
+        while (j < count && from[j] <= end + 1) {
+            start = Math.min(start, from[j]);
+            end = Math.max(end, to[j]);
+            blocked -= to[j] - from[j] + 1;
+            j++;
+        }
+
+        int shift = 1 - (j - i);
+        if (count + shift > from.length) {
+            from = Arrays.copyOf(from, from.length * 2);
+            to = Arrays.copyOf(to, to.length * 2);
+        }
+        System.arraycopy(from, j, from, j + shift, count - j);
+        System.arraycopy(to, j, to, j + shift, count - j);
+        from[i] = start;
+        to[i] = end;
+        count += shift;
+        blocked += end - start + 1;
+    }
+
+    public int freeColumns() {
+        return width - blocked;
+    }
+
+    /** Returns a uniformly chosen free column, or -1 if every column is blocked. */
+    public int pickFree(Random rand) {
+        int free = freeColumns();
+        if (free == 0) {
+            return -1;
+        }
+        int offset = rand.nextInt(free);
+        int column = 0;
+        for (int i = 0; i < count; i++) {
+            int gap = from[i] - column;
+            if (offset < gap) {
+                return column + offset;
+            }
+            offset -= gap;
+            column = to[i] + 1;
+        }
+        return column + offset;
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of nanosecond durations. Buckets are log-linear: every power of two is
+ * split into eight equal slices, so a recorded value is off by at most 12.5% and the whole range
+ * up to about a minute fits in a few hundred counters allocated up front. Recording is a
+ * handful of integer operations and never allocates.
+ *
+ * <p>Each histogram has a single writer. Other threads may read it at any time and see a recent,
+ * possibly not quite consistent, view, which is fine for an overlay; use {@link #copy()} to get a
+ * stable snapshot.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long max;
+
+    public LatencyHistogram() {
+        counts = new long[BUCKETS];
+    }
+
+    private LatencyHistogram(LatencyHistogram source) {
+        counts = source.counts.clone();
+        count = source.count;
+        max = source.max;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    // Values below 2^SUB_BITS get a bucket each; above that, the exponent picks the power of two
+    // and the next SUB_BITS bits below the leading one pick the slice.
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int slice = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + slice;
+    }
+
+    /** The largest value that lands in {@code bucket}. */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long slice = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + slice + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    /** The value at {@code fraction} (0..1) of the recorded durations, to bucket precision. */
+    public long percentile(double fraction) {
+        long total = count;
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+    }
+
+    public LatencyHistogram copy() {
+        return new LatencyHistogram(this);
+    }
+
+    /** Appends one {@code <upper bound ns> <count>} line per non-empty bucket. */
+    void appendBuckets(StringBuilder out) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                out.append(upperBound(i)).append(' ').append(counts[i]).append('\n');
+            }
+        }
+    }
+}
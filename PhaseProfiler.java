@@ -0,0 +1,141 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Per-phase frame timing: one {@link LatencyHistogram} for each stage of a tick and of a frame.
+ * Call sites bracket a phase with {@code long t = System.nanoTime(); ...; t = lap(PHASE, t);}, which
+ * costs two clock reads and never allocates. Histograms accumulate from the start of the session.
+ *
+ * <p>{@link #drawOverlay} draws p50/p99/max per phase in the corner of the game, and
+ * {@link #dump} writes the histograms to a text file in the background. The overlay text is
+ * rebuilt at most four times a second and drawn from cached strings in between, so having it on
+ * does not add garbage to every frame.
+ */
+public final class PhaseProfiler {
+    public static final int SPAWN = 0;
+    public static final int UPDATE = 1;
+    public static final int COLLISION = 2;
+    public static final int TICK = 3;
+    public static final int PAINT = 4;
+    public static final int PRESENT = 5;
+    /** From a key press to the end of drawing the first frame that shows its effect. */
+    public static final int INPUT = 6;
+
+    private static final String[] NAMES = {"spawn", "update", "collision", "tick", "paint", "present", "input"};
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final long OVERLAY_REFRESH_NANOS = 250_000_000L;
+
+    private final LatencyHistogram[] phases = new LatencyHistogram[NAMES.length];
+    private final StringBuilder line = new StringBuilder(64);
+    // One row per phase plus the caller's extra line; only touched by the painting thread.
+    private final String[] overlay = new String[NAMES.length + 1];
+    private long overlayBuilt;
+
+    public PhaseProfiler() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Records the time since {@code start} against {@code phase} and returns the current time. */
+    public long lap(int phase, long start) {
+        long now = System.nanoTime();
+        phases[phase].record(now - start);
+        return now;
+    }
+
+    public LatencyHistogram get(int phase) {
+        return phases[phase];
+    }
+
+    /**
+     * Draws the phase table with {@code extra} (entity counts, say) as a last line. The caller
+     * can pass a reused {@code StringBuilder}; it is only copied when the text is rebuilt.
+     */
+    public void drawOverlay(Graphics g, int x, int y, CharSequence extra) {
+        long now = System.nanoTime();
+        if (overlay[0] == null || now - overlayBuilt >= OVERLAY_REFRESH_NANOS) {
+            overlayBuilt = now;
+            for (int i = 0; i < NAMES.length; i++) {
+                LatencyHistogram h = phases[i];
+                line.setLength(0);
+                line.append(NAMES[i]);
+                pad(line, 10);
+                appendMicros(line, h.percentile(0.5));
+                appendMicros(line, h.percentile(0.99));
+                appendMicros(line, h.max());
+                overlay[i] = line.toString();
+            }
+            overlay[NAMES.length] = extra.toString();
+        }
+
+        int lineHeight = 14;
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(x, y, 250, lineHeight * (NAMES.length + 2) + 6);
+        g.setColor(Color.GREEN);
+        g.setFont(HudText.font(Font.PLAIN, 12));
+        int baseline = y + lineHeight;
+        g.drawString("phase        p50     p99     max  (us)", x + 5, baseline);
+        for (String row : overlay) {
+            baseline += lineHeight;
+            g.drawString(row, x + 5, baseline);
+        }
+    }
+
+    private static void pad(StringBuilder out, int width) {
+        while (out.length() < width) {
+            out.append(' ');
+        }
+    }
+
+    // Right-aligns nanos as microseconds with one decimal in a field of 8, without formatting.
+    private static void appendMicros(StringBuilder out, long nanos) {
+        long tenths = (nanos + 50) / 100;
+        long whole = tenths / 10;
+        int width = 3;
+        for (long rest = whole; rest >= 10; rest /= 10) {
+            width++;
+        }
+        for (int i = width; i < 8; i++) {
+            out.append(' ');
+        }
+        out.append(whole).append('.').append((char) ('0' + tenths % 10));
+    }
+
+    /**
+     * Snapshots every histogram and writes them to {@code <game>_profile-<time>.txt} on a
+     * background thread. Returns the file name.
+     */
+    public Path dump(String game) {
+        LatencyHistogram[] snapshot = new LatencyHistogram[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            snapshot[i] = phases[i].copy();
+        }
+        Path file = Paths.get(game + "_profile-" + System.currentTimeMillis() + ".txt");
+        Thread writer = new Thread(() -> {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < snapshot.length; i++) {
+                LatencyHistogram h = snapshot[i];
+                out.append(String.format(Locale.ROOT, "# %s count=%d p50=%d p90=%d p99=%d p99.9=%d max=%d (ns)%n",
+                        NAMES[i], h.count(), h.percentile(0.5), h.percentile(0.9), h.percentile(0.99),
+                        h.percentile(0.999), h.max()));
+                h.appendBuckets(out);
+                out.append('\n');
+            }
+            try {
+                Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("Failed to write profile " + file + ": " + e.getMessage());
+            }
+        }, "profile-dump");
+        writer.start();
+        return file;
+    }
+}
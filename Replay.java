@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Headless playback of recorded {@link InputLog}s. Each session is rebuilt from its seed and
+ * stepped as fast as the simulation allows; sessions are independent, so a batch is spread over
+ * all cores. Anything that wants to look at the game while it replays, such as a renderer drawing
+ * every n-th frame, plugs in as an {@link Observer}.
+ *
+ * <pre>
+ *   java Replay recordings/                 summary of every *.replay file under recordings/
+ *   java Replay -v a.replay b.replay        one line per session as well
+ * </pre>
+ */
+public final class Replay {
+    /** Called after every replayed step, on the replaying thread. */
+    public interface Observer {
+        void afterStep(Simulation sim);
+    }
+
+    static final class Result {
+        final Path file;
+        final String game;
+        long steps;
+        int games;
+        int bestScore;
+
+        Result(Path file, String game) {
+            this.file = file;
+            this.game = game;
+        }
+    }
+
+    private Replay() {
+    }
+
+    /** Builds the simulation a log named {@code game} was recorded from. */
+    public static Simulation newSimulation(String game, long seed) {
+        switch (game) {
+            case "space": return new SpaceSimulation(seed, SpaceSimulation.DEFAULT_MAX_ENEMY_ROCKETS);
+            case "car": return new CarSimulation(seed);
+            case "snake": return new SnakeSimulation(seed);
+            case "flappy": return new FlappySimulation(seed);
+            case "hero": return new HeroSimulation(seed);
+            default: throw new IllegalArgumentException("Unknown game: " + game);
+        }
+    }
+
+    /**
+     * The revision of {@code game}'s rules. Bump it whenever a change makes the same inputs from
+     * the same seed play out differently, so that older logs of that game are refused on load
+     * instead of replaying into a different game.
+     */
+    public static int revision(String game) {
+        switch (game) {
+            case "flappy": return 3; // pipes spawn by tick count, the first one PIPE_INTERVAL in
+            case "space": return 2; // held keys move 5 px a tick and fire at most every 6 ticks
+            case "car": return 2; // held keys move 5 px a tick
+            default: return 1;
+        }
+    }
+
+    /** Replays {@code log} from scratch, calling {@code observer} (if not null) after every step. */
+    public static Simulation play(InputLog log, Observer observer) {
+        Simulation sim = newSimulation(log.getGame(), log.getSeed());
+        log.replay(sim, observer);
+        return sim;
+    }
+
+    static Result run(Path file, InputLog log) {
+        Result result = new Result(file, log.getGame());
+        boolean[] over = new boolean[1];
+        result.steps = log.replay(newSimulation(log.getGame(), log.getSeed()), sim -> {
+            boolean gameOver = sim.isGameOver();
+            if (gameOver && !over[0]) {
+                result.games++;
+            }
+            over[0] = gameOver;
+            result.bestScore = Math.max(result.bestScore, sim.getScore());
+        });
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean verbose = false;
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("-v")) {
+                verbose = true;
+                continue;
+            }
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(p -> p.toString().endsWith(".replay")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java Replay [-v] <file.replay | directory>...");
+            System.exit(2);
+        }
+
+        // A log that cannot be read, e.g. one from an older revision of its game, is reported and
+        // left out rather than failing the whole batch.
+        List<Path> readable = new ArrayList<>();
+        List<InputLog> logs = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                logs.add(InputLog.read(file));
+                readable.add(file);
+            } catch (IOException e) {
+                System.err.println("Skipped " + e.getMessage());
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = IntStream.range(0, readable.size()).parallel()
+                .mapToObj(i -> run(readable.get(i), logs.get(i)))
+                .collect(Collectors.toList());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long steps = 0;
+        int games = 0;
+        for (Result r : results) {
+            steps += r.steps;
+            games += r.games;
+            if (verbose) {
+                System.out.println(String.format(Locale.ROOT, "%-40s %-7s %10d steps %6d games  best %d",
+                        r.file, r.game, r.steps, r.games, r.bestScore));
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "%d sessions, %d games, %d steps in %.2f s (%.0f steps/s)",
+                results.size(), games, steps, seconds, seconds == 0 ? 0 : steps / seconds));
+    }
+}
@@ -0,0 +1,75 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * A full-screen background that wraps around along one axis. The pre-scaled image is copied
+ * once into an accelerated {@link VolatileImage}; each frame is then two unscaled blits at the
+ * current scroll offset. If the video memory copy is lost (display mode change, another full
+ * screen app, ...) it is recreated from the source on the next draw.
+ */
+public class ScrollingBackground {
+    private final BufferedImage source;
+    private final int width;
+    private final int height;
+    private final boolean vertical;
+    private VolatileImage tile;
+
+    public ScrollingBackground(String name, int width, int height, boolean vertical) {
+        this.source = SpriteAtlas.get(name, width, height);
+        this.width = width;
+        this.height = height;
+        this.vertical = vertical;
+    }
+
+    /**
+     * Draws the background scrolled by {@code offset} pixels along its axis. Any offset is
+     * accepted; it is wrapped into one tile length.
+     */
+    public void draw(Graphics g, int offset) {
+        GraphicsConfiguration gc = g instanceof Graphics2D ? ((Graphics2D) g).getDeviceConfiguration() : null;
+        if (gc == null) {
+            blit(g, source, offset);
+            return;
+        }
+
+        do {
+            int status = tile == null ? VolatileImage.IMAGE_INCOMPATIBLE : tile.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (tile != null) {
+                    tile.flush();
+                }
+                tile = gc.createCompatibleVolatileImage(width, height, source.getTransparency());
+                render();
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                render();
+            }
+            blit(g, tile, offset);
+        } while (tile.contentsLost());
+    }
+
+    private void render() {
+        Graphics2D g2d = tile.createGraphics();
+        g2d.drawImage(source, 0, 0, null);
+        g2d.dispose();
+    }
+
+    private void blit(Graphics g, Image image, int offset) {
+        if (vertical) {
+            int y = Math.floorMod(offset, height);
+            g.drawImage(image, 0, y, null);
+            if (y > 0) {
+                g.drawImage(image, 0, y - height, null);
+            }
+        } else {
+            int x = Math.floorMod(offset, width);
+            g.drawImage(image, x, 0, null);
+            if (x > 0) {
+                g.drawImage(image, x - width, 0, null);
+            }
+        }
+    }
+}
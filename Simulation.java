@@ -0,0 +1,16 @@
+/**
+ * A game's display-free state. It only changes through {@link #step(int)}, called once per tick
+ * with a bitmask of that tick's inputs, and {@link #reset()}; given the seed it was built with,
+ * the same calls always produce the same game.
+ */
+public interface Simulation {
+    void step(int input);
+
+    void reset();
+
+    boolean isGameOver();
+
+    int getScore();
+
+    long getTick();
+}
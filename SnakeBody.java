@@ -0,0 +1,118 @@
+import java.util.Random;
+
+/**
+ * Snake body as a ring buffer of packed cell indices ({@code y * gridWidth + x}), head first,
+ * plus an occupancy bitset over the whole grid. Growing, moving and self-collision checks are
+ * all constant time regardless of length. The buffer holds one slot per grid cell, which is the
+ * longest a snake can ever get.
+ *
+ * <p>The cells not covered by the snake are also kept in a dense array with a reverse position
+ * map. Occupying a cell swaps it with the last free entry, so picking a uniformly random free
+ * cell is a single array read however full the board is.
+ */
+public class SnakeBody {
+    private final int gridWidth;
+    private final int[] cells;
+    private final long[] occupied;
+    private final int[] free;
+    private final int[] freePosition;
+    private int freeCount;
+    private int head = -1;
+    private int length;
+
+    public SnakeBody(int gridWidth, int gridHeight) {
+        this.gridWidth = gridWidth;
+        this.cells = new int[gridWidth * gridHeight];
+        this.occupied = new long[(cells.length + 63) >>> 6];
+        this.free = new int[cells.length];
+        this.freePosition = new int[cells.length];
+        for (int cell = 0; cell < free.length; cell++) {
+            free[cell] = cell;
+            freePosition[cell] = cell;
+        }
+        this.freeCount = free.length;
+    }
+
+    public int cell(int x, int y) {
+        return y * gridWidth + x;
+    }
+
+    public int x(int cell) {
+        return cell % gridWidth;
+    }
+
+    public int y(int cell) {
+        return cell / gridWidth;
+    }
+
+    public void clear() {
+        while (length > 0) {
+            removeTail();
+        }
+        head = -1;
+    }
+
+    public void addHead(int cell) {
+        head = head + 1 == cells.length ? 0 : head + 1;
+        cells[head] = cell;
+        length++;
+        occupied[cell >>> 6] |= 1L << cell;
+
+        int position = freePosition[cell];
+        int last = free[--freeCount];
+        free[position] = last;
+        freePosition[last] = position;
+        free[freeCount] = cell;
+        freePosition[cell] = freeCount;
+    }
+
+    public int removeTail() {
+        int tail = cells[index(length - 1)];
+        length--;
+        occupied[tail >>> 6] &= ~(1L << tail);
+
+        int position = freePosition[tail];
+        int first = free[freeCount];
+        free[position] = first;
+        freePosition[first] = position;
+        free[freeCount] = tail;
+        freePosition[tail] = freeCount;
+        freeCount++;
+        return tail;
+    }
+
+    public boolean isOccupied(int cell) {
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /** Returns a uniformly chosen cell outside the snake, or -1 when the snake fills the grid. */
+    public int randomFreeCell(Random rand) {
+        return freeCount == 0 ? -1 : free[rand.nextInt(freeCount)];
+    }
+
+    public int freeCells() {
+        return freeCount;
+    }
+
+    public int head() {
+        return cells[head];
+    }
+
+    public int tail() {
+        return cells[index(length - 1)];
+    }
+
+    /** Returns the i-th segment counting from the head. */
+    public int get(int i) {
+        return cells[index(i)];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    private int index(int i) {
+        int index = head - i;
+        return index < 0 ? index + cells.length : index;
+    }
+}
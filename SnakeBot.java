@@ -0,0 +1,95 @@
+import java.util.Random;
+
+/**
+ * A Snake policy: looks at the board before each move and picks the direction to go in. Bots are
+ * called from one thread per game, so an implementation may keep per-game state, but it must
+ * treat the simulation as read-only.
+ */
+public interface SnakeBot {
+    /** Returns one of the {@code SnakeSimulation.INPUT_} direction bits. */
+    int nextDirection(SnakeSimulation game);
+
+    int[] DIRECTIONS = {
+        SnakeSimulation.INPUT_UP, SnakeSimulation.INPUT_DOWN, SnakeSimulation.INPUT_LEFT, SnakeSimulation.INPUT_RIGHT
+    };
+
+    /** The cell one step from the head in {@code direction}, or -1 if that is off the board. */
+    static int target(SnakeSimulation game, int direction) {
+        SnakeBody snake = game.getSnake();
+        int x = snake.x(snake.head());
+        int y = snake.y(snake.head());
+        switch (direction) {
+            case SnakeSimulation.INPUT_UP: y--; break;
+            case SnakeSimulation.INPUT_DOWN: y++; break;
+            case SnakeSimulation.INPUT_LEFT: x--; break;
+            default: x++; break;
+        }
+        if (x < 0 || x >= game.getGridWidth() || y < 0 || y >= game.getGridHeight()) {
+            return -1;
+        }
+        return snake.cell(x, y);
+    }
+
+    /** The direction straight back the way {@code direction} came. */
+    static int opposite(int direction) {
+        switch (direction) {
+            case SnakeSimulation.INPUT_UP: return SnakeSimulation.INPUT_DOWN;
+            case SnakeSimulation.INPUT_DOWN: return SnakeSimulation.INPUT_UP;
+            case SnakeSimulation.INPUT_LEFT: return SnakeSimulation.INPUT_RIGHT;
+            default: return SnakeSimulation.INPUT_LEFT;
+        }
+    }
+
+    /** Whether moving in {@code direction} survives the next step. */
+    static boolean isSafe(SnakeSimulation game, int direction) {
+        // The simulation ignores a reversal and carries straight on, so it is never a safe pick,
+        // even when the cell behind the head is empty or is the tail.
+        if (direction == opposite(game.getDirection())) {
+            return false;
+        }
+        int cell = target(game, direction);
+        if (cell < 0) {
+            return false;
+        }
+        SnakeBody snake = game.getSnake();
+        // The tail moves out of the way unless this move eats.
+        return !snake.isOccupied(cell) || (cell == snake.tail() && cell != game.getFood());
+    }
+
+    /** Heads for the food by Manhattan distance, never moving into a wall or its own body. */
+    static SnakeBot greedy() {
+        return game -> {
+            SnakeBody snake = game.getSnake();
+            int food = game.getFood();
+            int best = game.getDirection();
+            int bestDistance = Integer.MAX_VALUE;
+            for (int direction : DIRECTIONS) {
+                if (!isSafe(game, direction)) {
+                    continue;
+                }
+                int cell = target(game, direction);
+                int distance = Math.abs(snake.x(cell) - snake.x(food)) + Math.abs(snake.y(cell) - snake.y(food));
+                if (distance < bestDistance) {
+                    best = direction;
+                    bestDistance = distance;
+                }
+            }
+            return best;
+        };
+    }
+
+    /** Picks uniformly among the moves that survive the next step: a baseline for other bots. */
+    static SnakeBot random(long seed) {
+        Random rand = new Random(seed);
+        int[] safe = new int[DIRECTIONS.length];
+        return game -> {
+            int count = 0;
+            for (int direction : DIRECTIONS) {
+                if (isSafe(game, direction)) {
+                    safe[count++] = direction;
+                }
+            }
+            return count == 0 ? game.getDirection() : safe[rand.nextInt(count)];
+        };
+    }
+}
@@ -1,35 +1,67 @@
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
-import java.io.*;
-import java.util.ArrayList;
 import java.util.Random;
 import javax.swing.*;
 
+/**
+ * Snake view. The board (background, food and snake) lives in a back buffer that is updated one
+ * tile at a time: a move only changes the old head, the new head, the vacated tail and the food,
+ * so a tick redraws those cells and paints each of them to the screen on its own. The HUD is
+ * drawn over the buffer when the frame is painted.
+ */
 public class SnakeGame extends JPanel implements ActionListener, KeyListener {
-    private final int TILE_SIZE = 40;
-    private final int GRID_WIDTH = 30;
-    private final int GRID_HEIGHT = 20;
-    private final int WIDTH = TILE_SIZE * GRID_WIDTH;
-    private final int HEIGHT = TILE_SIZE * GRID_HEIGHT;
+    private static final int TILE_SIZE = 40;
+    static final int DEFAULT_WIDTH = TILE_SIZE * SnakeSimulation.DEFAULT_GRID_WIDTH;
+    static final int DEFAULT_HEIGHT = TILE_SIZE * SnakeSimulation.DEFAULT_GRID_HEIGHT;
+    private static final int HUD_WIDTH = 300;
+    private static final int HUD_HEIGHT = 60;
+    private final int WIDTH;
+    private final int HEIGHT;
+
+    static final AssetPreloader.Sprite[] ASSETS = {
+        AssetPreloader.sprite("snakebg.png", DEFAULT_WIDTH, DEFAULT_HEIGHT),
+        AssetPreloader.sprite("snakefaceup.png", TILE_SIZE, TILE_SIZE),
+        AssetPreloader.sprite("snakefacedown.png", TILE_SIZE, TILE_SIZE),
+        AssetPreloader.sprite("snakefaceleft.png", TILE_SIZE, TILE_SIZE),
+        AssetPreloader.sprite("snakefaceright.png", TILE_SIZE, TILE_SIZE),
+        AssetPreloader.sprite("apple.png", TILE_SIZE, TILE_SIZE)
+    };
     
-    private ArrayList<Point> snake;
-    private Point food;
-    private String direction = "RIGHT";
-    private boolean running = true;
-    private Timer timer;
-    private int score = 0;
-    private int highScore = 0;
-    private int speed = 200;
+    private final SnakeSimulation sim;
+    private final SnakeBody snake;
+    private final InputLog inputLog;
+    private int pendingInput = 0;
+    private int savedHighScore = 0;
+    private GameTimer timer;
     
     private Image snakeFaceUp, snakeFaceDown, snakeFaceLeft, snakeFaceRight;
     private Image apple;
     private Image snakeBg;
     
     private final Color SNAKE_BODY_COLOR = new Color(0xA7C635);
-    private static final String HIGH_SCORE_FILE = "snake_highscore.txt";
+    private final BufferedImage board;
+    private final Graphics2D boardGraphics;
+    private int drawnHead, drawnTail, drawnFood, drawnScore;
+    private final HighScoreStore highScores = HighScoreStore.forGame("snake");
+    private final HudText scoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText highScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText gameOverText = new HudText("Game Over", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText finalScoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText finalHighScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText restartText = new HudText("Press R to Restart", HudText.font(Font.BOLD, 30), Color.WHITE);
 
     public SnakeGame() {
+        this(SnakeSimulation.DEFAULT_GRID_WIDTH, SnakeSimulation.DEFAULT_GRID_HEIGHT);
+    }
+
+    SnakeGame(int gridWidth, int gridHeight) {
+        WIDTH = TILE_SIZE * gridWidth;
+        HEIGHT = TILE_SIZE * gridHeight;
+        long seed = new Random().nextLong();
+        sim = new SnakeSimulation(gridWidth, gridHeight, seed);
+        snake = sim.getSnake();
+        inputLog = InputLog.startRecording("snake", seed);
         setDoubleBuffered(true); 
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
         setBackground(Color.BLACK);
@@ -37,204 +69,207 @@ public class SnakeGame extends JPanel implements ActionListener, KeyListener {
         addKeyListener(this);
         
        
-        snakeFaceUp = loadImage("snakefaceup.png");
-        snakeFaceDown = loadImage("snakefacedown.png");
-        snakeFaceLeft = loadImage("snakefaceleft.png");
-        snakeFaceRight = loadImage("snakefaceright.png");
-        apple = loadImage("apple.png");
-        snakeBg = loadImage("snakebg.png");
+        snakeFaceUp = SpriteAtlas.get("snakefaceup.png", TILE_SIZE, TILE_SIZE);
+        snakeFaceDown = SpriteAtlas.get("snakefacedown.png", TILE_SIZE, TILE_SIZE);
+        snakeFaceLeft = SpriteAtlas.get("snakefaceleft.png", TILE_SIZE, TILE_SIZE);
+        snakeFaceRight = SpriteAtlas.get("snakefaceright.png", TILE_SIZE, TILE_SIZE);
+        apple = SpriteAtlas.get("apple.png", TILE_SIZE, TILE_SIZE);
+        snakeBg = SpriteAtlas.get("snakebg.png", WIDTH, HEIGHT);
+        board = SpriteAtlas.createCompatibleImage(WIDTH, HEIGHT, Transparency.OPAQUE);
+        boardGraphics = board.createGraphics();
         
-        highScore = loadHighScore();
-        initializeGame();
+        savedHighScore = highScores.load();
+        sim.setHighScore(savedHighScore);
+        redrawBoard();
+        timer = new GameTimer(sim.getDelay(), this);
+        timer.start();
     }
     
-    private Image loadImage(String filename) {
-        try {
-        
-        Image image = new ImageIcon(filename).getImage();
-        if (image.getWidth(null) > 0) return image;
-        
-       
-        java.net.URL url = getClass().getResource("/" + filename);
-        if (url != null) {
-            image = new ImageIcon(url).getImage();
-            if (image.getWidth(null) > 0) return image;
+    private void restartGame() {
+        pendingInput = 0;
+        sim.reset();
+        if (inputLog != null) {
+            inputLog.recordReset();
         }
-        
-        throw new Exception("Image not found");
-    } catch (Exception e) {
-        System.err.println("Error loading image: " + filename);
-        
-        BufferedImage img = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = img.createGraphics();
-        g2d.setColor(Color.MAGENTA);
-        g2d.fillRect(0, 0, TILE_SIZE, TILE_SIZE);  
-        g2d.setColor(Color.BLACK);
-        g2d.drawString("X", TILE_SIZE/2-5, TILE_SIZE/2+5);
-        g2d.dispose();
-        return img;
-    }
-    }
-    
-    private void initializeGame() {
-        snake = new ArrayList<>();
-        snake.add(new Point(5, 5));
-        spawnFood();
-        direction = "RIGHT";
-        running = true;
-        score = 0;
-        speed = 200;
-        
-        if (timer != null) timer.stop();
-        timer = new Timer(speed, this);
+        redrawBoard();
+        timer.setDelay(sim.getDelay());
         timer.start();
     }
     
-    private void spawnFood() {
-        Random rand = new Random();
-        do {
-            food = new Point(rand.nextInt(GRID_WIDTH), rand.nextInt(GRID_HEIGHT));
-        } while (snake.contains(food));
-    }
-    
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        render(g);
+    }
+
+    void render(Graphics g) {
+        g.drawImage(board, 0, 0, null);
         
-        
-        if (snakeBg != null) {
-            g.drawImage(snakeBg, 0, 0, WIDTH, HEIGHT, this);
+        if (!sim.isGameOver()) {
+            scoreText.draw(g, sim.getScore(), 10, 20);
+            highScoreText.draw(g, sim.getHighScore(), 10, 50);
         } else {
-            g.setColor(Color.BLACK);
-            g.fillRect(0, 0, WIDTH, HEIGHT);
-        }
-        
-        if (running) {
-           
-            g.drawImage(apple, food.x * TILE_SIZE, food.y * TILE_SIZE, TILE_SIZE, TILE_SIZE, this);
             
-          
-            for (int i = 0; i < snake.size(); i++) {
-                Point p = snake.get(i);
-                if (i == 0) {
-                    g.drawImage(getSnakeFaceImage(), p.x * TILE_SIZE, p.y * TILE_SIZE, TILE_SIZE, TILE_SIZE, this);
-                } else {
-                    g.setColor(SNAKE_BODY_COLOR);
-                    g.fillRect(p.x * TILE_SIZE, p.y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-                }
+            gameOverText.draw(g, WIDTH/3, HEIGHT/2);
+            finalScoreText.draw(g, sim.getScore(), WIDTH/3, HEIGHT/2 + 40);
+            finalHighScoreText.draw(g, sim.getHighScore(), WIDTH/3, HEIGHT/2 + 80);
+            restartText.draw(g, WIDTH/3, HEIGHT/2 + 120);
+        }
+    }
+
+    // Repaints the back buffer from scratch: on start, restart and game over.
+    private void redrawBoard() {
+        drawBackground(0, 0, WIDTH, HEIGHT);
+        if (!sim.isGameOver()) {
+            int food = sim.getFood();
+            if (food >= 0) {
+                drawCell(food);
+            }
+            for (int i = 0; i < snake.length(); i++) {
+                drawCell(snake.get(i));
             }
-            
-           
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 20));
-            g.drawString("Score: " + score, 10, 20);
-            g.drawString("High Score: " + highScore, 10, 50);
-        } else {
-            
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 30));
-            g.drawString("Game Over", WIDTH/3, HEIGHT/2);
-            g.drawString("Score: " + score, WIDTH/3, HEIGHT/2 + 40);
-            g.drawString("High Score: " + highScore, WIDTH/3, HEIGHT/2 + 80);
-            g.drawString("Press R to Restart", WIDTH/3, HEIGHT/2 + 120);
         }
+        drawnHead = snake.head();
+        drawnTail = snake.tail();
+        drawnFood = sim.getFood();
+        drawnScore = sim.getScore();
+        repaint();
     }
-    
-    private Image getSnakeFaceImage() {
-        switch (direction) {
-            case "UP": return snakeFaceUp;
-            case "DOWN": return snakeFaceDown;
-            case "LEFT": return snakeFaceLeft;
-            case "RIGHT": return snakeFaceRight;
-            default: return snakeFaceRight;
+
+    // Brings the back buffer up to date after one move and paints only the cells that changed.
+    private void updateBoard() {
+        redrawCell(drawnHead);
+        redrawCell(drawnTail);
+        redrawCell(drawnFood);
+        drawnHead = snake.head();
+        drawnTail = snake.tail();
+        drawnFood = sim.getFood();
+        redrawCell(drawnHead);
+        redrawCell(drawnFood);
+        if (sim.getScore() != drawnScore) {
+            drawnScore = sim.getScore();
+            paintDirty(0, 0, HUD_WIDTH, HUD_HEIGHT);
         }
     }
-    
-    private void move() {
-        Point head = new Point(snake.get(0));
-        switch (direction) {
-            case "UP": head.y--; break;
-            case "DOWN": head.y++; break;
-            case "LEFT": head.x--; break;
-            case "RIGHT": head.x++; break;
+
+    private void redrawCell(int cell) {
+        if (cell < 0) {
+            return;
         }
-        
-        if (head.equals(food)) {
-            snake.add(0, head);
-            score++;
-            spawnFood();
-            increaseSpeed();
-            
-            if (score > highScore) {
-                highScore = score;
-                saveHighScore();
-            }
+        int x = snake.x(cell) * TILE_SIZE;
+        int y = snake.y(cell) * TILE_SIZE;
+        drawBackground(x, y, TILE_SIZE, TILE_SIZE);
+        drawCell(cell);
+        paintDirty(x, y, TILE_SIZE, TILE_SIZE);
+    }
+
+    // Separate repaint() calls are coalesced by the RepaintManager into one rectangle around all
+    // of them, which for a head and tail at opposite corners is most of the board. On the EDT each
+    // dirty rectangle is therefore painted straight away; with active rendering the game loop
+    // presents the whole frame anyway.
+    private void paintDirty(int x, int y, int width, int height) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            paintImmediately(x, y, width, height);
         } else {
-            snake.add(0, head);
-            snake.remove(snake.size() - 1);
-        }
-        
-        if (head.x < 0 || head.x >= GRID_WIDTH || 
-            head.y < 0 || head.y >= GRID_HEIGHT || 
-            snake.subList(1, snake.size()).contains(head)) {
-            running = false;
-            timer.stop();
+            repaint(x, y, width, height);
         }
     }
-    
-    private void increaseSpeed() {
-        if (speed > 50) {
-            speed -= 5;
-            timer.setDelay(speed);
+
+    private void drawBackground(int x, int y, int width, int height) {
+        if (snakeBg != null) {
+            boardGraphics.drawImage(snakeBg, x, y, x + width, y + height, x, y, x + width, y + height, null);
+        } else {
+            boardGraphics.setColor(Color.BLACK);
+            boardGraphics.fillRect(x, y, width, height);
         }
     }
-    
-    private int loadHighScore() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(HIGH_SCORE_FILE))) {
-            return Integer.parseInt(reader.readLine());
-        } catch (Exception e) {
-            return 0;
+
+    private void drawCell(int cell) {
+        int x = snake.x(cell) * TILE_SIZE;
+        int y = snake.y(cell) * TILE_SIZE;
+        if (cell == snake.head()) {
+            boardGraphics.drawImage(getSnakeFaceImage(), x, y, null);
+        } else if (snake.isOccupied(cell)) {
+            boardGraphics.setColor(SNAKE_BODY_COLOR);
+            boardGraphics.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        } else if (cell == sim.getFood()) {
+            boardGraphics.drawImage(apple, x, y, null);
         }
     }
     
-    private void saveHighScore() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(HIGH_SCORE_FILE))) {
-            writer.write(Integer.toString(highScore));
-        } catch (IOException e) {
-            System.err.println("Failed to save high score");
+    private Image getSnakeFaceImage() {
+        switch (sim.getDirection()) {
+            case SnakeSimulation.INPUT_UP: return snakeFaceUp;
+            case SnakeSimulation.INPUT_DOWN: return snakeFaceDown;
+            case SnakeSimulation.INPUT_LEFT: return snakeFaceLeft;
+            default: return snakeFaceRight;
         }
     }
     
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (running) move();
-        repaint();
+        if (!sim.isGameOver()) {
+            GameEvents.Tick event = GameEvents.begin(GameEvents.TICK, GameEvents.Tick::new);
+            int input = pendingInput;
+            pendingInput = 0;
+            sim.step(input);
+            if (inputLog != null) {
+                inputLog.recordStep(input);
+            }
+            
+            if (sim.getHighScore() > savedHighScore) {
+                savedHighScore = sim.getHighScore();
+                highScores.save(savedHighScore);
+            }
+            if (sim.isGameOver()) {
+                timer.stop();
+                redrawBoard();
+            } else {
+                timer.setDelay(sim.getDelay());
+                updateBoard();
+            }
+            if (GameEvents.end(event)) {
+                event.game = "snake";
+                event.tick = sim.getTick();
+                event.entities = snake.length();
+                event.commit();
+            }
+        }
     }
     
     @Override
     public void keyPressed(KeyEvent e) {
         switch (e.getKeyCode()) {
-            case KeyEvent.VK_UP: if (!direction.equals("DOWN")) direction = "UP"; break;
-            case KeyEvent.VK_DOWN: if (!direction.equals("UP")) direction = "DOWN"; break;
-            case KeyEvent.VK_LEFT: if (!direction.equals("RIGHT")) direction = "LEFT"; break;
-            case KeyEvent.VK_RIGHT: if (!direction.equals("LEFT")) direction = "RIGHT"; break;
-            case KeyEvent.VK_R: if (!running) initializeGame(); break;
+            case KeyEvent.VK_UP: pendingInput |= SnakeSimulation.INPUT_UP; break;
+            case KeyEvent.VK_DOWN: pendingInput |= SnakeSimulation.INPUT_DOWN; break;
+            case KeyEvent.VK_LEFT: pendingInput |= SnakeSimulation.INPUT_LEFT; break;
+            case KeyEvent.VK_RIGHT: pendingInput |= SnakeSimulation.INPUT_RIGHT; break;
+            case KeyEvent.VK_R: if (sim.isGameOver()) restartGame(); break;
         }
     }
     
     @Override public void keyReleased(KeyEvent e) {}
     @Override public void keyTyped(KeyEvent e) {}
     
+    /** Stops the game for good, e.g. when the launcher switches to another one. */
+    void stop() {
+        timer.stop();
+        if (inputLog != null) {
+            inputLog.finish();
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
+            if (GameLoop.requested(args)) {
+                GameLoop.start();
+            }
             JFrame frame = new JFrame("Snake Game");
-            SnakeGame game = new SnakeGame();
-            frame.add(game);
-            frame.pack();
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.setLocationRelativeTo(null);
-            frame.setVisible(true);
-            game.requestFocusInWindow();
+            AssetPreloader.show(frame, new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT), ASSETS, () -> {
+                SnakeGame game = new SnakeGame();
+                return GameCanvas.host(game, game::render);
+            });
         });
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Batch evaluation of a {@link SnakeBot}. Games are independent headless
+ * {@link SnakeSimulation}s, seeded from their index so any single game can be re-run, and are
+ * split across a {@link ForkJoinPool} by recursive halving of the index range. Each worker plays
+ * its games back to back with no shared state, and the per-range results are merged on the way
+ * back up, so throughput scales with the number of cores.
+ *
+ * <pre>
+ *   java SnakeSelfPlay [games] [bot: greedy|random] [width] [height] [max-ticks] [threads]
+ * </pre>
+ */
+public final class SnakeSelfPlay {
+    private static final int LEAF_GAMES = 64;
+
+    /** Aggregated outcome of a range of games. */
+    static final class Stats {
+        long games;
+        long ticks;
+        long totalScore;
+        int maxScore;
+        final long[] scoreCounts;
+
+        Stats(int cells) {
+            scoreCounts = new long[cells + 1];
+        }
+
+        void add(SnakeSimulation game) {
+            games++;
+            ticks += game.getTick();
+            totalScore += game.getScore();
+            maxScore = Math.max(maxScore, game.getScore());
+            scoreCounts[game.getScore()]++;
+        }
+
+        Stats merge(Stats other) {
+            games += other.games;
+            ticks += other.ticks;
+            totalScore += other.totalScore;
+            maxScore = Math.max(maxScore, other.maxScore);
+            for (int i = 0; i < scoreCounts.length; i++) {
+                scoreCounts[i] += other.scoreCounts[i];
+            }
+            return this;
+        }
+
+        /** The smallest score that at least {@code fraction} of the games did not exceed. */
+        int percentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * games);
+            long seen = 0;
+            for (int score = 0; score < scoreCounts.length; score++) {
+                seen += scoreCounts[score];
+                if (seen >= rank && seen > 0) {
+                    return score;
+                }
+            }
+            return maxScore;
+        }
+    }
+
+    private static final class Batch extends RecursiveTask<Stats> {
+        private final LongFunction<SnakeBot> bots;
+        private final int width;
+        private final int height;
+        private final long maxTicks;
+        private final long from;
+        private final long to;
+
+        Batch(LongFunction<SnakeBot> bots, int width, int height, long maxTicks, long from, long to) {
+            this.bots = bots;
+            this.width = width;
+            this.height = height;
+            this.maxTicks = maxTicks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from > LEAF_GAMES) {
+                long mid = (from + to) >>> 1;
+                Batch left = new Batch(bots, width, height, maxTicks, from, mid);
+                left.fork();
+                Stats right = new Batch(bots, width, height, maxTicks, mid, to).compute();
+                return right.merge(left.join());
+            }
+            Stats stats = new Stats(width * height);
+            for (long seed = from; seed < to; seed++) {
+                stats.add(play(bots.apply(seed), width, height, seed, maxTicks));
+            }
+            return stats;
+        }
+    }
+
+    private SnakeSelfPlay() {
+    }
+
+    /** Plays one game to the end, or until {@code maxTicks} moves have been made. */
+    public static SnakeSimulation play(SnakeBot bot, int width, int height, long seed, long maxTicks) {
+        SnakeSimulation game = new SnakeSimulation(width, height, seed);
+        while (!game.isGameOver() && game.getTick() < maxTicks) {
+            game.step(bot.nextDirection(game));
+        }
+        return game;
+    }
+
+    /** Plays games {@code 0 .. games-1} on {@code pool}; game {@code i} uses seed {@code i}. */
+    public static Stats run(ForkJoinPool pool, LongFunction<SnakeBot> bots, long games,
+                            int width, int height, long maxTicks) {
+        return pool.invoke(new Batch(bots, width, height, maxTicks, 0, games));
+    }
+
+    static LongFunction<SnakeBot> bot(String name) {
+        switch (name) {
+            case "greedy": return seed -> SnakeBot.greedy();
+            case "random": return SnakeBot::random;
+            default: throw new IllegalArgumentException("Unknown bot: " + name);
+        }
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        String botName = args.length > 1 ? args[1] : "greedy";
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : SnakeSimulation.DEFAULT_GRID_WIDTH;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : SnakeSimulation.DEFAULT_GRID_HEIGHT;
+        long maxTicks = args.length > 4 ? Long.parseLong(args[4]) : 100L * width * height;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Stats stats = run(pool, bot(botName), games, width, height, maxTicks);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.println(String.format(Locale.ROOT, "%s on %dx%d, %d threads: %d games, %d ticks in %.2f s",
+                botName, width, height, threads, stats.games, stats.ticks, seconds));
+        System.out.println(String.format(Locale.ROOT, "%.0f games/s, %.0f ticks/s",
+                stats.games / seconds, stats.ticks / seconds));
+        System.out.println(String.format(Locale.ROOT, "score mean %.2f  p50 %d  p90 %d  p99 %d  max %d",
+                (double) stats.totalScore / stats.games, stats.percentile(0.5), stats.percentile(0.9),
+                stats.percentile(0.99), stats.maxScore));
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.Random;
+
+/**
+ * Display-free SnakeGame state. One {@link #step(int)} is one move; how often it is called is up
+ * to the driver, which should follow {@link #getDelay()} to reproduce the game's speed-up.
+ */
+public class SnakeSimulation implements Simulation {
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 1 << 1;
+    public static final int INPUT_UP = 1 << 2;
+    public static final int INPUT_DOWN = 1 << 3;
+
+    public static final int DEFAULT_GRID_WIDTH = 30;
+    public static final int DEFAULT_GRID_HEIGHT = 20;
+
+    private static final int START_DELAY = 200;
+    private static final int MIN_DELAY = 50;
+
+    private final Random rand;
+    private final int gridWidth;
+    private final int gridHeight;
+
+    final SnakeBody snake;
+    // One of the INPUT_ direction bits.
+    int direction;
+    private int food;
+    private boolean running;
+    private int score;
+    private int highScore;
+    private int delay;
+    private long tick;
+
+    public SnakeSimulation(long seed) {
+        this(DEFAULT_GRID_WIDTH, DEFAULT_GRID_HEIGHT, seed);
+    }
+
+    public SnakeSimulation(int gridWidth, int gridHeight, long seed) {
+        this.rand = new Random(seed);
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.snake = new SnakeBody(gridWidth, gridHeight);
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        snake.clear();
+        snake.addHead(snake.cell(5, 5));
+        food = snake.randomFreeCell(rand);
+        direction = INPUT_RIGHT;
+        running = true;
+        score = 0;
+        delay = START_DELAY;
+        tick = 0;
+    }
+
+    @Override
+    public void step(int input) {
+        if (!running) {
+            return;
+        }
+        applyInput(input);
+        move();
+        tick++;
+    }
+
+    // Turns are judged against the direction the snake is actually moving in, so two quick key
+    // presses within one move can never reverse it into its own neck.
+    private void applyInput(int input) {
+        int moving = direction;
+        if ((input & INPUT_UP) != 0 && moving != INPUT_DOWN) {
+            direction = INPUT_UP;
+        }
+        if ((input & INPUT_DOWN) != 0 && moving != INPUT_UP) {
+            direction = INPUT_DOWN;
+        }
+        if ((input & INPUT_LEFT) != 0 && moving != INPUT_RIGHT) {
+            direction = INPUT_LEFT;
+        }
+        if ((input & INPUT_RIGHT) != 0 && moving != INPUT_LEFT) {
+            direction = INPUT_RIGHT;
+        }
+    }
+
+    void move() {
+        int x = snake.x(snake.head());
+        int y = snake.y(snake.head());
+        switch (direction) {
+            case INPUT_UP: y--; break;
+            case INPUT_DOWN: y++; break;
+            case INPUT_LEFT: x--; break;
+            default: x++; break;
+        }
+
+        if (x < 0 || x >= gridWidth || y < 0 || y >= gridHeight) {
+            running = false;
+            return;
+        }
+
+        int head = snake.cell(x, y);
+        boolean eating = head == food;
+        if (!eating) {
+            snake.removeTail();
+        }
+
+        if (snake.isOccupied(head)) {
+            running = false;
+            return;
+        }
+        snake.addHead(head);
+
+        if (eating) {
+            score++;
+            food = snake.randomFreeCell(rand);
+            if (delay > MIN_DELAY) {
+                delay -= 5;
+            }
+
+            if (score > highScore) {
+                highScore = score;
+            }
+
+            if (food == -1) {
+                running = false;
+            }
+        }
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return !running;
+    }
+
+    public SnakeBody getSnake() {
+        return snake;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    /** The food cell, or -1 once the snake fills the board. */
+    public int getFood() {
+        return food;
+    }
+
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    /** Milliseconds between moves at the current speed. */
+    public int getDelay() {
+        return delay;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public void setHighScore(int highScore) {
+        this.highScore = highScore;
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+}
@@ -1,347 +1,259 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.Random;
 import javax.swing.*;
 
 public class SpaceGame extends JPanel implements ActionListener, KeyListener {
-    private int rocketX = 200;
-    private int rocketY = 700;
-    private final int rocketWidth = 40;
-    private final int rocketHeight = 90;
-
-    private Timer timer;
-    private ArrayList<EnemyRocket> enemyRockets;
-    private ArrayList<Bullet> playerBullets;
-    private ArrayList<Bullet> enemyBullets;
-    private Random rand;
-    private boolean gameOver = false;
-    private boolean flashRed = false;
-    private int enemySpeed = 5;
-    private int enemyBulletSpeed = 5;
-    private final int playerBulletSpeed = 10;
-    private int difficultyCounter = 0;
-
-    private final int frameWidth = 400;
-    private final int frameHeight = 800;
-
-    private Image spaceBg;
+    static final AssetPreloader.Sprite[] ASSETS = {
+        AssetPreloader.sprite("spacebg.png", SpaceSimulation.WIDTH, SpaceSimulation.HEIGHT),
+        AssetPreloader.sprite("player_rocket.png", SpaceSimulation.ROCKET_WIDTH, SpaceSimulation.ROCKET_HEIGHT),
+        AssetPreloader.sprite("player_bullet.png", SpaceSimulation.BULLET_WIDTH, SpaceSimulation.BULLET_HEIGHT),
+        AssetPreloader.sprite("enemy_bullet.png", SpaceSimulation.BULLET_WIDTH, SpaceSimulation.BULLET_HEIGHT),
+        AssetPreloader.sprite("enemy_rocket1.png", SpaceSimulation.ROCKET_WIDTH, SpaceSimulation.ROCKET_HEIGHT),
+        AssetPreloader.sprite("enemy_rocket2.png", SpaceSimulation.ROCKET_WIDTH, SpaceSimulation.ROCKET_HEIGHT),
+        AssetPreloader.sprite("enemy_rocket3.png", SpaceSimulation.ROCKET_WIDTH, SpaceSimulation.ROCKET_HEIGHT)
+    };
+
+    private final int rocketWidth = SpaceSimulation.ROCKET_WIDTH;
+    private final int rocketHeight = SpaceSimulation.ROCKET_HEIGHT;
+
+    // The simulation is only touched by simLoop's thread. Painting reads the frames it publishes,
+    // and key presses reach it through the polled controls or as posted tasks.
+    private final GameLoop simLoop;
+    private GameTimer timer;
+    private final SpaceSimulation sim;
+    private final InputLog inputLog;
+    private final InputState controls = new InputState()
+            .bind(KeyEvent.VK_LEFT, SpaceSimulation.INPUT_LEFT)
+            .bind(KeyEvent.VK_RIGHT, SpaceSimulation.INPUT_RIGHT)
+            .bind(KeyEvent.VK_UP, SpaceSimulation.INPUT_UP)
+            .bind(KeyEvent.VK_DOWN, SpaceSimulation.INPUT_DOWN)
+            .bind(KeyEvent.VK_SPACE, SpaceSimulation.INPUT_FIRE);
+    // The press time of the newest input the simulation has acted on (simLoop's thread), and of
+    // the last one a painted frame has shown (the painting thread).
+    private long lastPressNanos;
+    private long shownPressNanos;
+    private final TripleBuffer<SpaceFrame> frames = new TripleBuffer<>(SpaceFrame::new);
+    private long flashedTick = -1;
+    // F3 shows per-phase timings over the game, F4 writes them to a file.
+    final PhaseProfiler profiler = new PhaseProfiler();
+    private volatile boolean showProfile = false;
+    private final StringBuilder overlayCounts = new StringBuilder(48);
+
+    private final int frameWidth = SpaceSimulation.WIDTH;
+    private final int frameHeight = SpaceSimulation.HEIGHT;
+
+    private ScrollingBackground spaceBg;
     private Image playerRocket;
     private Image[] opponentRockets;
-    private Image explosionImage;
     private Image playerBulletImage;
     private Image enemyBulletImage;
 
-    private int score = 0;
-    private int highScore = 0;
+    private int savedHighScore = 0;
 
-    private static final String HIGH_SCORE_FILE = "highscore.txt";
-    private static final int MAX_ENEMY_ROCKETS = 4;
-    private int bgY = 0;
-    private final int bgScrollSpeed = 2;
+    private final HighScoreStore highScores = HighScoreStore.forGame("space", "highscore.txt");
+    private static final Color FLASH_COLOR = new Color(255, 0, 0, 100);
+    private final HudText scoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText highScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 20), Color.WHITE);
+    private final HudText gameOverText = new HudText("Game Over!", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText finalScoreText = HudText.numbered("Score: ", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText finalHighScoreText = HudText.numbered("High Score: ", HudText.font(Font.BOLD, 30), Color.WHITE);
+    private final HudText restartText = new HudText("Press R to Restart", HudText.font(Font.BOLD, 30), Color.WHITE);
 
     public SpaceGame() {
         setDoubleBuffered(true);
-        timer = new Timer(20, this);
-        enemyRockets = new ArrayList<>();
-        playerBullets = new ArrayList<>();
-        enemyBullets = new ArrayList<>();
-        rand = new Random();
+        simLoop = GameLoop.startDedicated("space-simulation");
+        timer = new GameTimer(20, this, simLoop);
+        long seed = new Random().nextLong();
+        sim = new SpaceSimulation(seed, SpaceSimulation.DEFAULT_MAX_ENEMY_ROCKETS);
+        inputLog = InputLog.startRecording("space", seed);
 
         
-        spaceBg = loadImage("spacebg.png");
-        playerRocket = loadImage("player_rocket.png");
-        explosionImage = loadImage("explosion.png");
-        playerBulletImage = loadImage("player_bullet.png");
-        enemyBulletImage = loadImage("enemy_bullet.png");
+        spaceBg = new ScrollingBackground("spacebg.png", frameWidth, frameHeight, true);
+        playerRocket = SpriteAtlas.get("player_rocket.png", rocketWidth, rocketHeight);
+        playerBulletImage = SpriteAtlas.get("player_bullet.png", SpaceSimulation.BULLET_WIDTH, SpaceSimulation.BULLET_HEIGHT);
+        enemyBulletImage = SpriteAtlas.get("enemy_bullet.png", SpaceSimulation.BULLET_WIDTH, SpaceSimulation.BULLET_HEIGHT);
 
         opponentRockets = new Image[]{
-            loadImage("enemy_rocket1.png"),
-            loadImage("enemy_rocket2.png"),
-            loadImage("enemy_rocket3.png")
+            SpriteAtlas.get("enemy_rocket1.png", rocketWidth, rocketHeight),
+            SpriteAtlas.get("enemy_rocket2.png", rocketWidth, rocketHeight),
+            SpriteAtlas.get("enemy_rocket3.png", rocketWidth, rocketHeight)
         };
 
+        addKeyListener(controls);
         addKeyListener(this);
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                controls.clear();
+            }
+        });
         setFocusable(true);
         setPreferredSize(new Dimension(frameWidth, frameHeight));
 
-       
-        try {
-            File file = new File(HIGH_SCORE_FILE);
-            if (file.exists()) {
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                highScore = Integer.parseInt(reader.readLine());
-                reader.close();
-            }
-        } catch (IOException | NumberFormatException e) {
-            highScore = 0;
-        }
+        savedHighScore = highScores.load();
+        sim.setHighScore(savedHighScore);
+        sim.setProfiler(profiler);
+        publishFrame();
 
         timer.start();
     }
 
-    private Image loadImage(String path) {
-        try {
-            ImageIcon icon = new ImageIcon(path);
-            if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                return icon.getImage();
-            }
-            
-           
-            java.net.URL url = getClass().getResource("/" + path);
-            if (url != null) {
-                icon = new ImageIcon(url);
-                if (icon.getImageLoadStatus() == MediaTracker.COMPLETE) {
-                    return icon.getImage();
-                }
-            }
-            
-            throw new Exception("Image not found");
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + path);
-           
-            BufferedImage img = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = img.createGraphics();
-            g2d.setColor(Color.MAGENTA);
-            g2d.fillRect(0, 0, 50, 50);
-            g2d.setColor(Color.BLACK);
-            g2d.drawString("X", 20, 25);
-            g2d.dispose();
-            return img;
-        }
-    }
-
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        render(g);
+    }
+
+    void render(Graphics g) {
+        long start = System.nanoTime();
+        SpaceFrame frame = frames.acquire();
 
         if (spaceBg != null) {
-            g.drawImage(spaceBg, 0, bgY, frameWidth, frameHeight, this);
-            g.drawImage(spaceBg, 0, bgY - frameHeight, frameWidth, frameHeight, this);
+            spaceBg.draw(g, frame.bgY);
         } else {
             g.setColor(Color.BLACK);
             g.fillRect(0, 0, frameWidth, frameHeight);
         }
 
-        if (flashRed) {
-            g.setColor(new Color(255, 0, 0, 100));
+        if (frame.gameOver && frame.tick != flashedTick) {
+            g.setColor(FLASH_COLOR);
             g.fillRect(0, 0, frameWidth, frameHeight);
-            flashRed = false;
+            flashedTick = frame.tick;
         }
 
-        if (!gameOver) {
+        if (!frame.gameOver) {
           
             if (playerRocket != null) {
-                g.drawImage(playerRocket, rocketX, rocketY, rocketWidth, rocketHeight, this);
+                g.drawImage(playerRocket, frame.rocketX, frame.rocketY, null);
             } else {
                 g.setColor(Color.GREEN);
-                g.fillRect(rocketX, rocketY, rocketWidth, rocketHeight);
+                g.fillRect(frame.rocketX, frame.rocketY, rocketWidth, rocketHeight);
             }
 
          
-            for (EnemyRocket enemy : enemyRockets) {
-                if (enemy.image != null) {
-                    g.drawImage(enemy.image, enemy.x, enemy.y, enemy.width, enemy.height, this);
+            EntityStore enemies = frame.enemyRockets;
+            for (int i = 0; i < enemies.size(); i++) {
+                Image image = opponentRockets[enemies.type[i]];
+                if (image != null) {
+                    g.drawImage(image, enemies.x[i], enemies.y[i], null);
                 } else {
                     g.setColor(Color.RED);
-                    g.fillRect(enemy.x, enemy.y, enemy.width, enemy.height);
+                    g.fillRect(enemies.x[i], enemies.y[i], rocketWidth, rocketHeight);
                 }
             }
 
           
-            for (Bullet bullet : playerBullets) {
+            EntityStore bullets = frame.playerBullets;
+            for (int i = 0; i < bullets.size(); i++) {
                 if (playerBulletImage != null) {
-                    g.drawImage(playerBulletImage, bullet.x, bullet.y, 5, 20, this);
+                    g.drawImage(playerBulletImage, bullets.x[i], bullets.y[i], null);
                 } else {
                     g.setColor(Color.YELLOW);
-                    g.fillRect(bullet.x, bullet.y, 5, 20);
+                    g.fillRect(bullets.x[i], bullets.y[i], 5, 20);
                 }
             }
 
-            for (Bullet bullet : enemyBullets) {
+            bullets = frame.enemyBullets;
+            for (int i = 0; i < bullets.size(); i++) {
                 if (enemyBulletImage != null) {
-                    g.drawImage(enemyBulletImage, bullet.x, bullet.y, 5, 20, this);
+                    g.drawImage(enemyBulletImage, bullets.x[i], bullets.y[i], null);
                 } else {
                     g.setColor(Color.ORANGE);
-                    g.fillRect(bullet.x, bullet.y, 5, 20);
+                    g.fillRect(bullets.x[i], bullets.y[i], 5, 20);
                 }
             }
 
             
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 20));
-            g.drawString("Score: " + score, 10, 30);
-            g.drawString("High Score: " + highScore, 10, 60);
+            scoreText.draw(g, frame.score, 10, 30);
+            highScoreText.draw(g, frame.highScore, 10, 60);
         } else {
             
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 30));
-            g.drawString("Game Over!", frameWidth / 4, frameHeight / 2);
-            g.drawString("Score: " + score, frameWidth / 4, frameHeight / 2 + 40);
-            g.drawString("High Score: " + highScore, frameWidth / 4, frameHeight / 2 + 80);
-            g.drawString("Press R to Restart", frameWidth / 4, frameHeight / 2 + 120);
+            gameOverText.draw(g, frameWidth / 4, frameHeight / 2);
+            finalScoreText.draw(g, frame.score, frameWidth / 4, frameHeight / 2 + 40);
+            finalHighScoreText.draw(g, frame.highScore, frameWidth / 4, frameHeight / 2 + 80);
+            restartText.draw(g, frameWidth / 4, frameHeight / 2 + 120);
         }
-    }
-
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        if (!gameOver) {
-          
-            difficultyCounter++;
-            if (difficultyCounter % 300 == 0) {
-                enemySpeed++;
-                enemyBulletSpeed++;
-            }
-
-           
-            bgY += bgScrollSpeed;
-            if (bgY >= frameHeight) {
-                bgY = 0;
-            }
-
-           
-            if (enemyRockets.size() < MAX_ENEMY_ROCKETS && rand.nextInt(100) < 5) {
-                spawnEnemyRocket();
-            }
-
-           
-            updateBullets();
-
-           
-            updateEnemies();
-
-            
-            checkCollisions();
-
-            repaint();
+        profiler.lap(PhaseProfiler.PAINT, start);
+        if (frame.pressNanos != shownPressNanos) {
+            shownPressNanos = frame.pressNanos;
+            profiler.lap(PhaseProfiler.INPUT, frame.pressNanos);
         }
-    }
-
-    private void spawnEnemyRocket() {
-        int x = rand.nextInt(frameWidth - 40);
-        int y = -90;
-        Image image = opponentRockets[rand.nextInt(opponentRockets.length)];
-        enemyRockets.add(new EnemyRocket(x, y, image));
-    }
 
-    private void spawnEnemyBullet(EnemyRocket enemy) {
-        enemyBullets.add(new Bullet(enemy.x + enemy.width / 2 - 2, enemy.y + enemy.height));
-    }
-
-    private void updateBullets() {
-      
-        playerBullets.removeIf(bullet -> bullet.y < 0);
-        enemyBullets.removeIf(bullet -> bullet.y > frameHeight);
-
-        
-        for (Bullet bullet : playerBullets) {
-            bullet.y -= playerBulletSpeed;
-        }
-        for (Bullet bullet : enemyBullets) {
-            bullet.y += enemyBulletSpeed;
+        if (showProfile) {
+            overlayCounts.setLength(0);
+            overlayCounts.append("enemies ").append(frame.enemyRockets.size())
+                    .append("  bullets ").append(frame.playerBullets.size())
+                    .append('/').append(frame.enemyBullets.size());
+            profiler.drawOverlay(g, frameWidth - 260, 10, overlayCounts);
         }
     }
 
-    private void updateEnemies() {
-        Iterator<EnemyRocket> enemyIterator = enemyRockets.iterator();
-        while (enemyIterator.hasNext()) {
-            EnemyRocket enemy = enemyIterator.next();
-            enemy.y += enemySpeed;
-            
-     
-            if (rand.nextInt(100) < 10) {
-                enemy.x += rand.nextBoolean() ? 10 : -10;
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (!sim.isGameOver()) {
+            long start = System.nanoTime();
+            GameEvents.Tick event = GameEvents.begin(GameEvents.TICK, GameEvents.Tick::new);
+            int input = controls.sample();
+            if (controls.sampledPressNanos() != 0) {
+                lastPressNanos = controls.sampledPressNanos();
             }
-
-       
-            if (rand.nextInt(100) < 2) {
-                spawnEnemyBullet(enemy);
+            sim.step(input);
+            if (inputLog != null) {
+                inputLog.recordStep(input);
             }
 
-          
-            if (enemy.y > frameHeight) {
-                enemyIterator.remove();
+            if (sim.getHighScore() > savedHighScore) {
+                savedHighScore = sim.getHighScore();
+                highScores.save(savedHighScore);
             }
-        }
-    }
-
-    private void checkCollisions() {
-       
-        Iterator<Bullet> bulletIterator = playerBullets.iterator();
-        while (bulletIterator.hasNext()) {
-            Bullet bullet = bulletIterator.next();
-            Iterator<EnemyRocket> enemyIterator = enemyRockets.iterator();
-            while (enemyIterator.hasNext()) {
-                EnemyRocket enemy = enemyIterator.next();
-                if (enemy.getBounds().intersects(bullet.getBounds())) {
-                    enemyIterator.remove();
-                    bulletIterator.remove();
-                    score += 10;
-                    if (score > highScore) {
-                        highScore = score;
-                        saveHighScore();
-                    }
-                    return;
-                }
+            if (sim.isGameOver()) {
+                timer.stop();
             }
-        }
 
-       
-        for (Bullet bullet : enemyBullets) {
-            if (new Rectangle(rocketX, rocketY, rocketWidth, rocketHeight).intersects(bullet.getBounds())) {
-                flashRed = true;
-                gameOver = true;
-                timer.stop();
-                saveHighScore();
-                return;
+            publishFrame();
+            profiler.lap(PhaseProfiler.TICK, start);
+            if (GameEvents.end(event)) {
+                event.game = "space";
+                event.tick = sim.getTick();
+                event.entities = sim.getEnemyRockets().size() + sim.getPlayerBullets().size() + sim.getEnemyBullets().size();
+                event.commit();
             }
+            repaint();
         }
     }
 
-    private void saveHighScore() {
-        try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(HIGH_SCORE_FILE));
-            writer.write(String.valueOf(highScore));
-            writer.close();
-        } catch (IOException e) {
-            System.err.println("Failed to save high score");
-        }
+    private void publishFrame() {
+        SpaceFrame frame = frames.back();
+        frame.copyFrom(sim);
+        frame.pressNanos = lastPressNanos;
+        frames.publish();
     }
 
     @Override
     public void keyPressed(KeyEvent e) {
         int key = e.getKeyCode();
-        if (key == KeyEvent.VK_LEFT && rocketX > 0) {
-            rocketX -= 10;
-        } else if (key == KeyEvent.VK_RIGHT && rocketX < frameWidth - rocketWidth) {
-            rocketX += 10;
-        } else if (key == KeyEvent.VK_UP && rocketY > 0) {
-            rocketY -= 10;
-        } else if (key == KeyEvent.VK_DOWN && rocketY < frameHeight - rocketHeight) {
-            rocketY += 10;
-        } else if (key == KeyEvent.VK_SPACE) {
-            playerBullets.add(new Bullet(rocketX + rocketWidth / 2 - 2, rocketY));
-        } else if (key == KeyEvent.VK_R && gameOver) {
-            restartGame();
+        if (key == KeyEvent.VK_R) {
+            simLoop.post(this::restartGame);
+        } else if (key == KeyEvent.VK_F3) {
+            showProfile = !showProfile;
+            repaint();
+        } else if (key == KeyEvent.VK_F4) {
+            System.err.println("Writing frame timings to " + profiler.dump("space"));
         }
     }
 
     private void restartGame() {
-        gameOver = false;
-        flashRed = false;
-        rocketX = 200;
-        rocketY = 700;
-        score = 0;
-        enemySpeed = 5;
-        enemyBulletSpeed = 5;
-        difficultyCounter = 0;
-        enemyRockets.clear();
-        playerBullets.clear();
-        enemyBullets.clear();
-        bgY = 0;
+        if (!sim.isGameOver()) {
+            return;
+        }
+        sim.reset();
+        controls.clear();
+        if (inputLog != null) {
+            inputLog.recordReset();
+        }
+        publishFrame();
+        repaint();
         timer.start();
     }
 
@@ -351,48 +263,52 @@ public class SpaceGame extends JPanel implements ActionListener, KeyListener {
     @Override
     public void keyTyped(KeyEvent e) {}
 
+    /** Stops the game and its simulation thread for good, e.g. when the launcher switches games. */
+    void stop() {
+        timer.stop();
+        simLoop.shutdown();
+        if (inputLog != null) {
+            inputLog.finish();
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
+            if (GameLoop.requested(args)) {
+                GameLoop.start();
+            }
             JFrame frame = new JFrame("Space Rocket Game");
-            SpaceGame game = new SpaceGame();
-            frame.add(game);
-            frame.pack();
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
             frame.setResizable(false);
-            frame.setLocationRelativeTo(null);
-            frame.setVisible(true);
+            AssetPreloader.show(frame, new Dimension(SpaceSimulation.WIDTH, SpaceSimulation.HEIGHT), ASSETS, () -> {
+                SpaceGame game = new SpaceGame();
+                return GameCanvas.host(game, game::render, game.profiler);
+            });
         });
     }
 }
 
-class Bullet {
-    int x, y;
-    private final int width = 5;
-    private final int height = 20;
-
-    public Bullet(int x, int y) {
-        this.x = x;
-        this.y = y;
-    }
-
-    public Rectangle getBounds() {
-        return new Rectangle(x, y, width, height);
+class SpaceFrame {
+    int rocketX, rocketY;
+    int score, highScore;
+    int bgY;
+    boolean gameOver;
+    long tick;
+    long pressNanos;
+    final EntityStore enemyRockets = new EntityStore();
+    final EntityStore playerBullets = new EntityStore(256);
+    final EntityStore enemyBullets = new EntityStore(256);
+
+    void copyFrom(SpaceSimulation sim) {
+        rocketX = sim.getRocketX();
+        rocketY = sim.getRocketY();
+        score = sim.getScore();
+        highScore = sim.getHighScore();
+        bgY = sim.getBgY();
+        gameOver = sim.isGameOver();
+        tick = sim.getTick();
+        enemyRockets.copyFrom(sim.getEnemyRockets());
+        playerBullets.copyFrom(sim.getPlayerBullets());
+        enemyBullets.copyFrom(sim.getEnemyBullets());
     }
 }
-
-class EnemyRocket {
-    int x, y;
-    int width = 40;
-    int height = 90;
-    Image image;
-
-    public EnemyRocket(int x, int y, Image image) {
-        this.x = x;
-        this.y = y;
-        this.image = image;
-    }
-
-    public Rectangle getBounds() {
-        return new Rectangle(x, y, width, height);
-    }
-}
\ No newline at end of file
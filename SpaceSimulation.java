@@ -0,0 +1,328 @@
+import java.util.Random;
+
+/**
+ * Display-free SpaceGame state. Everything that used to happen in the panel's timer callback
+ * happens in {@link #step(int)}, so the game can be driven by Swing, a bot or a test loop alike.
+ * Inputs are the controls held during a tick: a held direction moves the rocket every tick and a
+ * held fire button shoots every {@value #FIRE_INTERVAL_TICKS} ticks.
+ */
+public class SpaceSimulation implements Simulation {
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 1 << 1;
+    public static final int INPUT_UP = 1 << 2;
+    public static final int INPUT_DOWN = 1 << 3;
+    public static final int INPUT_FIRE = 1 << 4;
+
+    public static final int WIDTH = 400;
+    public static final int HEIGHT = 800;
+    public static final int ROCKET_WIDTH = 40;
+    public static final int ROCKET_HEIGHT = 90;
+    public static final int BULLET_WIDTH = 5;
+    public static final int BULLET_HEIGHT = 20;
+    public static final int ENEMY_TYPES = 3;
+    public static final int DEFAULT_MAX_ENEMY_ROCKETS = 4;
+
+    private static final int MOVE_STEP = 5;
+    private static final int FIRE_INTERVAL_TICKS = 6;
+    private static final int PLAYER_BULLET_SPEED = 10;
+    private static final int BG_SCROLL_SPEED = 2;
+    private static final int COLLISION_CELL_SIZE = 64;
+
+    private final Random rand;
+    private final int maxEnemyRockets;
+
+    // Entity slots are recycled in place and every buffer only ever grows, so once a session has
+    // reached its peak entity counts a tick allocates nothing.
+    private final EntityStore enemyRockets;
+    private final EntityStore playerBullets = new EntityStore(256);
+    private final EntityStore enemyBullets = new EntityStore(256);
+    private final SpatialHash enemyGrid = new SpatialHash(WIDTH, HEIGHT, COLLISION_CELL_SIZE);
+    private boolean[] enemyHit;
+    private PhaseProfiler profiler;
+
+    private int rocketX;
+    private int rocketY;
+    private boolean gameOver;
+    private int enemySpeed;
+    private int enemyBulletSpeed;
+    private int difficultyCounter;
+    private int score;
+    private int highScore;
+    private int bgY;
+    private long tick;
+    private int fireCooldown;
+
+    public SpaceSimulation() {
+        this(new Random(), DEFAULT_MAX_ENEMY_ROCKETS);
+    }
+
+    public SpaceSimulation(long seed, int maxEnemyRockets) {
+        this(new Random(seed), maxEnemyRockets);
+    }
+
+    private SpaceSimulation(Random rand, int maxEnemyRockets) {
+        this.rand = rand;
+        this.maxEnemyRockets = maxEnemyRockets;
+        this.enemyRockets = new EntityStore(maxEnemyRockets);
+        this.enemyHit = new boolean[Math.max(16, maxEnemyRockets)];
+        reset();
+    }
+
+    public void reset() {
+        gameOver = false;
+        rocketX = 200;
+        rocketY = 700;
+        score = 0;
+        enemySpeed = 5;
+        enemyBulletSpeed = 5;
+        difficultyCounter = 0;
+        enemyRockets.clear();
+        playerBullets.clear();
+        enemyBullets.clear();
+        bgY = 0;
+        tick = 0;
+        fireCooldown = 0;
+    }
+
+    public void step(int input) {
+        if (gameOver) {
+            return;
+        }
+        applyInput(input);
+
+        difficultyCounter++;
+        if (difficultyCounter % 300 == 0) {
+            enemySpeed++;
+            enemyBulletSpeed++;
+        }
+
+        bgY += BG_SCROLL_SPEED;
+        if (bgY >= HEIGHT) {
+            bgY = 0;
+        }
+
+        if (profiler == null) {
+            if (enemyRockets.size() < maxEnemyRockets && rand.nextInt(100) < 5) {
+                spawnEnemyRocket();
+            }
+            updateBullets();
+            updateEnemies();
+            resolveCollisions();
+        } else {
+            long t = System.nanoTime();
+            if (enemyRockets.size() < maxEnemyRockets && rand.nextInt(100) < 5) {
+                spawnEnemyRocket();
+            }
+            t = profiler.lap(PhaseProfiler.SPAWN, t);
+            updateBullets();
+            updateEnemies();
+            t = profiler.lap(PhaseProfiler.UPDATE, t);
+            resolveCollisions();
+            profiler.lap(PhaseProfiler.COLLISION, t);
+        }
+        tick++;
+    }
+
+    /** Times the spawn, update and collision phases of every step into {@code profiler}. */
+    public void setProfiler(PhaseProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    private void applyInput(int input) {
+        if ((input & INPUT_LEFT) != 0 && rocketX > 0) {
+            rocketX -= MOVE_STEP;
+        }
+        if ((input & INPUT_RIGHT) != 0 && rocketX < WIDTH - ROCKET_WIDTH) {
+            rocketX += MOVE_STEP;
+        }
+        if ((input & INPUT_UP) != 0 && rocketY > 0) {
+            rocketY -= MOVE_STEP;
+        }
+        if ((input & INPUT_DOWN) != 0 && rocketY < HEIGHT - ROCKET_HEIGHT) {
+            rocketY += MOVE_STEP;
+        }
+        if (fireCooldown > 0) {
+            fireCooldown--;
+        }
+        if ((input & INPUT_FIRE) != 0 && fireCooldown == 0) {
+            playerBullets.add(rocketX + ROCKET_WIDTH / 2 - 2, rocketY, 0);
+            fireCooldown = FIRE_INTERVAL_TICKS;
+        }
+    }
+
+    void spawnEnemyRocket() {
+        int x = rand.nextInt(WIDTH - ROCKET_WIDTH);
+        int y = -ROCKET_HEIGHT;
+        enemyRockets.add(x, y, rand.nextInt(ENEMY_TYPES));
+    }
+
+    // Culling is tested before moving, as before, so a bullet is dropped the tick after it leaves.
+    void updateBullets() {
+        EntityStore bullets = playerBullets;
+        for (int i = 0; i < bullets.size(); ) {
+            if (bullets.y[i] < 0) {
+                bullets.remove(i);
+            } else {
+                bullets.y[i] -= PLAYER_BULLET_SPEED;
+                i++;
+            }
+        }
+
+        bullets = enemyBullets;
+        for (int i = 0; i < bullets.size(); ) {
+            if (bullets.y[i] > HEIGHT) {
+                bullets.remove(i);
+            } else {
+                bullets.y[i] += enemyBulletSpeed;
+                i++;
+            }
+        }
+    }
+
+    void updateEnemies() {
+        EntityStore enemies = enemyRockets;
+        for (int i = 0; i < enemies.size(); ) {
+            enemies.y[i] += enemySpeed;
+
+            if (rand.nextInt(100) < 10) {
+                enemies.x[i] += rand.nextBoolean() ? 10 : -10;
+            }
+
+            if (rand.nextInt(100) < 2) {
+                enemyBullets.add(enemies.x[i] + ROCKET_WIDTH / 2 - 2, enemies.y[i] + ROCKET_HEIGHT, 0);
+            }
+
+            if (enemies.y[i] > HEIGHT) {
+                enemies.remove(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void resolveCollisions() {
+        GameEvents.Collision event = GameEvents.begin(GameEvents.COLLISION, GameEvents.Collision::new);
+        int enemies = enemyRockets.size();
+        int bullets = playerBullets.size();
+        int scoreBefore = score;
+        checkCollisions();
+        if (GameEvents.end(event)) {
+            event.game = "space";
+            event.targets = enemies;
+            event.projectiles = bullets;
+            event.hits = (score - scoreBefore) / 10;
+            event.commit();
+        }
+    }
+
+    void checkCollisions() {
+        EntityStore enemies = enemyRockets;
+        EntityStore bullets = playerBullets;
+        int enemyCount = enemies.size();
+        if (enemyCount > 0 && !bullets.isEmpty()) {
+            if (enemyHit.length < enemyCount) {
+                enemyHit = new boolean[Math.max(enemyCount, enemyHit.length * 2)];
+            }
+            enemyGrid.clear();
+            for (int i = 0; i < enemyCount; i++) {
+                enemyHit[i] = false;
+                enemyGrid.insert(i, enemies.x[i], enemies.y[i], ROCKET_WIDTH, ROCKET_HEIGHT);
+            }
+
+            int kills = 0;
+            for (int b = 0; b < bullets.size(); ) {
+                if (hitEnemy(bullets.x[b], bullets.y[b])) {
+                    bullets.remove(b);
+                    kills++;
+                } else {
+                    b++;
+                }
+            }
+
+            if (kills > 0) {
+                // Walking down keeps the grid ids valid: the entity swapped in was already checked.
+                for (int i = enemyCount - 1; i >= 0; i--) {
+                    if (enemyHit[i]) {
+                        enemies.remove(i);
+                    }
+                }
+
+                score += 10 * kills;
+                if (score > highScore) {
+                    highScore = score;
+                }
+            }
+        }
+
+        EntityStore incoming = enemyBullets;
+        for (int i = 0; i < incoming.size(); i++) {
+            if (overlaps(rocketX, rocketY, ROCKET_WIDTH, ROCKET_HEIGHT,
+                    incoming.x[i], incoming.y[i], BULLET_WIDTH, BULLET_HEIGHT)) {
+                gameOver = true;
+                return;
+            }
+        }
+    }
+
+    private boolean hitEnemy(int bulletX, int bulletY) {
+        EntityStore enemies = enemyRockets;
+        int candidates = enemyGrid.query(bulletX, bulletY, BULLET_WIDTH, BULLET_HEIGHT);
+        for (int c = 0; c < candidates; c++) {
+            int i = enemyGrid.result(c);
+            if (!enemyHit[i] && overlaps(enemies.x[i], enemies.y[i], ROCKET_WIDTH, ROCKET_HEIGHT,
+                    bulletX, bulletY, BULLET_WIDTH, BULLET_HEIGHT)) {
+                enemyHit[i] = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getRocketX() {
+        return rocketX;
+    }
+
+    public int getRocketY() {
+        return rocketY;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public void setHighScore(int highScore) {
+        this.highScore = highScore;
+    }
+
+    public int getBgY() {
+        return bgY;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    EntityStore getEnemyRockets() {
+        return enemyRockets;
+    }
+
+    EntityStore getPlayerBullets() {
+        return playerBullets;
+    }
+
+    EntityStore getEnemyBullets() {
+        return enemyBullets;
+    }
+}
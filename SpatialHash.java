@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * Uniform-grid broadphase over a fixed-size world. Boxes are bucketed into every cell they
+ * overlap; anything outside the world is clamped into the border cells, so overlapping boxes
+ * always share at least one cell. The grid is meant to be cleared and refilled every tick and
+ * stops allocating once its arrays have grown to the working set.
+ */
+public class SpatialHash {
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellHead;
+
+    private int[] entryId = new int[64];
+    private int[] entryNext = new int[64];
+    private int entryCount;
+
+    private int[] seen = new int[64];
+    private int queryStamp;
+
+    private int[] results = new int[16];
+    private int resultCount;
+
+    public SpatialHash(int worldWidth, int worldHeight, int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (worldWidth + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (worldHeight + cellSize - 1) / cellSize);
+        this.cellHead = new int[columns * rows];
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        entryCount = 0;
+    }
+
+    public void insert(int id, int x, int y, int width, int height) {
+        if (id >= seen.length) {
+            seen = Arrays.copyOf(seen, Math.max(id + 1, seen.length * 2));
+        }
+        int c0 = column(x);
+        int c1 = column(x + width - 1);
+        int r0 = row(y);
+        int r1 = row(y + height - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                add(r * columns + c, id);
+            }
+        }
+    }
+
+    /**
+     * Collects the ids of every inserted box sharing a cell with the given box, each id once.
+     * The candidates still need an exact overlap test. Returns the number of candidates, which
+     * are read back with {@link #result(int)} until the next query.
+     */
+    public int query(int x, int y, int width, int height) {
+        if (++queryStamp == 0) {
+            Arrays.fill(seen, 0);
+            queryStamp = 1;
+        }
+        resultCount = 0;
+        int c0 = column(x);
+        int c1 = column(x + width - 1);
+        int r0 = row(y);
+        int r1 = row(y + height - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                for (int e = cellHead[r * columns + c]; e != -1; e = entryNext[e]) {
+                    int id = entryId[e];
+                    if (seen[id] != queryStamp) {
+                        seen[id] = queryStamp;
+                        if (resultCount == results.length) {
+                            results = Arrays.copyOf(results, resultCount * 2);
+                        }
+                        results[resultCount++] = id;
+                    }
+                }
+            }
+        }
+        return resultCount;
+    }
+
+    public int result(int index) {
+        return results[index];
+    }
+
+    private void add(int cell, int id) {
+        if (entryCount == entryId.length) {
+            entryId = Arrays.copyOf(entryId, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryId[entryCount] = id;
+        entryNext[entryCount] = cellHead[cell];
+        cellHead[cell] = entryCount;
+        entryCount++;
+    }
+
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+}
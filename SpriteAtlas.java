@@ -0,0 +1,130 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+/**
+ * Process-wide image cache shared by all the games. Each file is decoded once; each
+ * (name, draw size) pair is scaled once into an image compatible with the screen, so painting is
+ * an unscaled blit. Images are looked up in the working directory first and then on the class
+ * path; anything missing is replaced with a magenta placeholder so the games still run.
+ *
+ * <p>Lookups are thread-safe, and decoding and scaling happen outside the maps' locks so that
+ * {@link AssetPreloader} threads loading different images never wait for each other. Two threads
+ * asking for the same image at once may both decode it; the first one cached wins.
+ */
+public final class SpriteAtlas {
+    private static final Map<String, BufferedImage> SOURCES = new ConcurrentHashMap<>();
+    private static final Map<String, BufferedImage> SPRITES = new ConcurrentHashMap<>();
+
+    private SpriteAtlas() {
+    }
+
+    /** Returns {@code name} scaled to exactly {@code width x height}. */
+    public static BufferedImage get(String name, int width, int height) {
+        String key = name + '@' + width + 'x' + height;
+        BufferedImage sprite = SPRITES.get(key);
+        if (sprite == null) {
+            sprite = cache(SPRITES, key, scale(source(name), width, height));
+        }
+        return sprite;
+    }
+
+    /** Returns the decoded image at its original size. */
+    public static BufferedImage source(String name) {
+        BufferedImage image = SOURCES.get(name);
+        if (image == null) {
+            image = cache(SOURCES, name, load(name));
+        }
+        return image;
+    }
+
+    private static BufferedImage cache(Map<String, BufferedImage> map, String key, BufferedImage image) {
+        BufferedImage cached = map.putIfAbsent(key, image);
+        return cached != null ? cached : image;
+    }
+
+    private static BufferedImage load(String name) {
+        GameEvents.AssetLoad event = GameEvents.begin(GameEvents.ASSET_LOAD, GameEvents.AssetLoad::new);
+        BufferedImage image;
+        boolean missing = false;
+        try {
+            image = decode(name);
+        } catch (IOException e) {
+            System.err.println("Error loading image: " + name + " - " + e.getMessage());
+            image = placeholder();
+            missing = true;
+        }
+        if (GameEvents.end(event)) {
+            event.name = name;
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.missing = missing;
+            event.commit();
+        }
+        return image;
+    }
+
+    private static BufferedImage decode(String name) throws IOException {
+        BufferedImage image = null;
+        File file = new File(name);
+        if (file.isFile()) {
+            image = ImageIO.read(file);
+        } else {
+            URL url = SpriteAtlas.class.getResource("/" + name);
+            if (url != null) {
+                image = ImageIO.read(url);
+            }
+        }
+        if (image == null) {
+            throw new IOException("Image not found");
+        }
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage sprite = createCompatibleImage(width, height, source.getTransparency());
+        Graphics2D g2d = sprite.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.drawImage(source, 0, 0, width, height, null);
+        g2d.dispose();
+        return sprite;
+    }
+
+    static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        GraphicsConfiguration gc = defaultConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height,
+                transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    static GraphicsConfiguration defaultConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    private static BufferedImage placeholder() {
+        BufferedImage img = new BufferedImage(50, 50, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = img.createGraphics();
+        g2d.setColor(Color.MAGENTA);
+        g2d.fillRect(0, 0, 50, 50);
+        g2d.setColor(Color.BLACK);
+        g2d.drawString("X", 20, 25);
+        g2d.dispose();
+        return img;
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Wait-free single-producer, single-consumer handoff of the latest value. The producer always
+ * owns one buffer to write into, the consumer always owns one to read from, and the third sits
+ * in between; publishing and acquiring are a single atomic exchange of the middle slot. Neither
+ * side ever waits for the other, the consumer always sees a complete value, and values the
+ * consumer was too slow to pick up are simply overwritten.
+ */
+public class TripleBuffer<T> {
+    private static final int DIRTY = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(2);
+    private int back = 0;
+    private int front = 1;
+
+    public TripleBuffer(Supplier<T> factory) {
+        buffers = new Object[]{factory.get(), factory.get(), factory.get()};
+    }
+
+    /** The producer's buffer. Only valid until the next {@link #publish()}. */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[back];
+    }
+
+    /** Makes the back buffer the latest value and hands the producer a free one. */
+    public void publish() {
+        back = middle.getAndSet(back | DIRTY) & INDEX;
+    }
+
+    /**
+     * Returns the most recently published value, or the previously acquired one if nothing new
+     * was published. Only valid until the next call.
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & DIRTY) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return (T) buffers[front];
+    }
+}